@@ -0,0 +1,99 @@
+import benchmarks.GameHotPaths;
+
+/**
+ * Gives the JMH benchmarks (which live in a named package) a way to reach the game's classes.
+ */
+public class GameHotPathsImpl implements GameHotPaths {
+    // instance variables
+    private Hunter hunter;
+    private Shop shop;
+    private Town town;
+    private Action[] moves;
+    private GameRandom picker;
+    private GameState start;
+    private GameState state;
+
+    @Override
+    public void setUp(long seed) {
+        GameRandom random = new GameRandom(seed);
+        hunter = new Hunter("bench", DifficultyProfile.NORMAL);
+        hunter.setGold(1000);
+        hunter.buyItem("shovel", 8);
+        hunter.buyItem("rope", 4);
+        hunter.buyItem("boots", 10);
+        hunter.addTreasure(0, "Gem");
+        shop = new Shop(DifficultyProfile.NORMAL, random);
+        town = new Town(shop, DifficultyProfile.NORMAL, random);
+        town.hunterArrives(hunter);
+
+        moves = new Action[4 + Item.count()];
+        moves[0] = Action.LOOK_FOR_TROUBLE;
+        moves[1] = Action.DIG;
+        moves[2] = Action.HUNT;
+        moves[3] = Action.MOVE;
+        for (int i = 0; i < Item.count(); i++) {
+            moves[4 + i] = Action.buy(Item.byOrdinal(i));
+        }
+        picker = new GameRandom(seed);
+        start = new GameEngine("Searcher", DifficultyProfile.NORMAL, seed).checkpoint();
+        state = start;
+    }
+
+    @Override
+    public boolean hasItemInKit() {
+        return hunter.hasItemInKit("boots");
+    }
+
+    @Override
+    public String hunterInfoString() {
+        return hunter.infoString();
+    }
+
+    @Override
+    public String hunterInventory() {
+        return hunter.getInventory();
+    }
+
+    @Override
+    public String shopInventory() {
+        return shop.inventory();
+    }
+
+    @Override
+    public int costOfItem() {
+        return shop.getCostOfItem("shovel");
+    }
+
+    @Override
+    public String lookForTrouble() {
+        hunter.setGold(1000);
+        town.lookForTrouble();
+        return town.getLatestNews();
+    }
+
+    @Override
+    public String hunt() {
+        town.setPrintMessage("");
+        town.setTownHunted(false);
+        town.hunt();
+        return town.getLatestNews();
+    }
+
+    @Override
+    public boolean playScriptedGame(long seed) {
+        return BatchSimulator.playGame(DifficultyProfile.NORMAL, seed);
+    }
+
+    @Override
+    public int forkAndPlay() {
+        GameEngine branch = state.resume();
+        branch.perform(moves[picker.nextInt(moves.length)]);
+        // a finished branch starts again from the beginning
+        if (branch.isGameOver()) {
+            state = start;
+        } else {
+            state = branch.checkpoint();
+        }
+        return branch.getTurns();
+    }
+}
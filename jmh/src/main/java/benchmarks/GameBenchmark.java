@@ -0,0 +1,82 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the game's hot paths. Run through BenchmarkMain to get the allocation rate alongside.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+    private GameHotPaths game;
+    private long seed;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        game = (GameHotPaths) Class.forName("GameHotPathsImpl").getDeclaredConstructor().newInstance();
+        game.setUp(42);
+    }
+
+    @Benchmark
+    public boolean hunterHasItemInKit() {
+        return game.hasItemInKit();
+    }
+
+    @Benchmark
+    public String hunterInfoString() {
+        return game.hunterInfoString();
+    }
+
+    @Benchmark
+    public String hunterGetInventory() {
+        return game.hunterInventory();
+    }
+
+    @Benchmark
+    public String shopInventory() {
+        return game.shopInventory();
+    }
+
+    @Benchmark
+    public int shopGetCostOfItem() {
+        return game.costOfItem();
+    }
+
+    @Benchmark
+    public String townLookForTrouble() {
+        return game.lookForTrouble();
+    }
+
+    @Benchmark
+    public String townHunt() {
+        return game.hunt();
+    }
+
+    @Benchmark
+    public int gameStateFork() {
+        return game.forkAndPlay();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean scriptedGame() {
+        // a different, but repeatable, game every call
+        seed++;
+        return game.playScriptedGame(seed);
+    }
+}
@@ -0,0 +1,56 @@
+package benchmarks;
+
+/**
+ * The game's classes live in the default package, which code in a named package (like JMH benchmarks)
+ * cannot refer to. GameHotPathsImpl sits in the default package and exposes the hot paths through this interface,
+ * so the benchmarks can call them without reflection on every invocation.
+ */
+public interface GameHotPaths {
+
+    /**
+     * Builds a fresh hunter, shop and town.
+     *
+     * @param seed The seed for the game's random rolls.
+     */
+    void setUp(long seed);
+
+    boolean hasItemInKit();
+
+    String hunterInfoString();
+
+    String hunterInventory();
+
+    String shopInventory();
+
+    int costOfItem();
+
+    /**
+     * Picks a fight, topping the hunter's gold back up first so the game never ends.
+     *
+     * @return the town's news.
+     */
+    String lookForTrouble();
+
+    /**
+     * Hunts for treasure, clearing the town's flags and news first so it can be repeated.
+     *
+     * @return the town's news.
+     */
+    String hunt();
+
+    /**
+     * Plays a whole game with the BatchSimulator bot.
+     *
+     * @param seed The game's seed.
+     * @return true if the bot won.
+     */
+    boolean playScriptedGame(long seed);
+
+    /**
+     * Starts a new game from the latest checkpoint, plays one random move in it (including buying any item) and
+     * checkpoints it again; a finished game goes back to the checkpoint at the start.
+     *
+     * @return how many turns the new game has taken.
+     */
+    int forkAndPlay();
+}
@@ -0,0 +1,82 @@
+/**
+ * The Action class is one move a Strategy can make: a menu choice, or buying or selling one item.<p>
+ * There are only a handful of possible moves, so every one is made once and shared; asking for the same move twice
+ * gives back the same object, and a bot choosing its moves never creates any garbage.
+ */
+
+public class Action {
+    // constants
+    public static final Action LOOK_FOR_TROUBLE = new Action("l", null);
+    public static final Action HUNT = new Action("h", null);
+    public static final Action DIG = new Action("d", null);
+    public static final Action MOVE = new Action("m", null);
+    public static final Action QUIT = new Action("x", null);
+
+    // static variables
+    private static final Action[] BUYS = new Action[Item.count()];
+    private static final Action[] SELLS = new Action[Item.count()];
+
+    static {
+        for (int i = 0; i < Item.count(); i++) {
+            BUYS[i] = new Action("b", Item.byOrdinal(i));
+            SELLS[i] = new Action("s", Item.byOrdinal(i));
+        }
+    }
+
+    // instance variables
+    private final String choice;
+    private final Item item;
+
+    /**
+     * @param choice The menu letter for this move.
+     * @param item The item bought or sold, or null for the other moves.
+     */
+    private Action(String choice, Item item) {
+        this.choice = choice;
+        this.item = item;
+    }
+
+    /**
+     * @param item The item to buy.
+     * @return the move that buys it.
+     */
+    public static Action buy(Item item) {
+        return BUYS[item.ordinal()];
+    }
+
+    /**
+     * @param item The item to sell.
+     * @return the move that sells it.
+     */
+    public static Action sell(Item item) {
+        return SELLS[item.ordinal()];
+    }
+
+    // accessors
+    public String getChoice() {
+        return choice;
+    }
+
+    /**
+     * @return the item bought or sold, or null if this move isn't shopping.
+     */
+    public Item getItem() {
+        return item;
+    }
+
+    public boolean isBuy() {
+        return choice.equals("b");
+    }
+
+    public boolean isSell() {
+        return choice.equals("s");
+    }
+
+    @Override
+    public String toString() {
+        if (item == null) {
+            return choice;
+        }
+        return choice + " " + item;
+    }
+}
@@ -0,0 +1,210 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The AsyncOutputStream class lets the game write its output without ever waiting on a slow terminal or connection.
+ * <p>
+ * What the game writes is copied into a ring buffer and the call returns straight away; a writer thread of its own
+ * sends it on to the real stream in large batches. Only the game's thread writes and only the writer thread reads,
+ * so the two sides share nothing but two counters, and neither ever takes a lock. <p>
+ * flush() doesn't wait either: it marks how far the output has got and wakes the writer, which sends everything up
+ * to that mark and flushes the real stream. Everything arrives in the order it was written, so a prompt flushed
+ * before the game waits for an answer is always on screen after whatever came before it. The writer is only woken
+ * by a flush or a half-full buffer, so a turn's worth of text goes out in one write. <p>
+ * The game only waits if the buffer fills up completely, which means the other end has stopped reading, and in
+ * drain(), which waits for everything to be sent and is used when a game ends. If the real stream fails, everything
+ * after that is thrown away and the next write or flush throws the failure.
+ */
+
+public final class AsyncOutputStream extends OutputStream {
+    // instance variables
+    private final OutputStream out;
+    private final byte[] ring;
+    private final int mask;
+    private final byte[] oneByte;
+    private final Thread writer;
+    // how many bytes the game has written; only the game's thread changes it
+    private volatile long head;
+    // how many bytes have been sent on; only the writer changes it
+    private volatile long tail;
+    // the writer flushes the real stream once it has sent this much
+    private volatile long flushTo;
+    private volatile long flushed;
+    private volatile boolean writerSleeping;
+    private volatile Thread waitingGame;
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    /**
+     * @param out The real stream.
+     * @param capacity How many bytes can be waiting to be sent; rounded up to a power of two.
+     */
+    public AsyncOutputStream(OutputStream out, int capacity) {
+        this.out = out;
+        int size = Integer.highestOneBit(Math.max(capacity, 64) - 1) << 1;
+        ring = new byte[size];
+        mask = size - 1;
+        oneByte = new byte[1];
+        head = 0;
+        tail = 0;
+        flushTo = 0;
+        flushed = 0;
+        // started last, and the class is final, so the writer only ever sees a fully built stream
+        writer = Thread.ofVirtual().name("output-writer").unstarted(this::writeLoop);
+        writer.start();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        oneByte[0] = (byte) b;
+        write(oneByte, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        checkOpen();
+        while (length > 0) {
+            long free = ring.length - (head - tail);
+            if (free == 0) {
+                waitForWriter(() -> ring.length - (head - tail) > 0);
+                checkOpen();
+                continue;
+            }
+            int count = (int) Math.min(length, free);
+            int position = (int) (head & mask);
+            int first = Math.min(count, ring.length - position);
+            System.arraycopy(bytes, offset, ring, position, first);
+            System.arraycopy(bytes, offset + first, ring, 0, count - first);
+            head += count;
+            offset += count;
+            length -= count;
+        }
+        if (head - tail > ring.length / 2) {
+            wakeWriter();
+        }
+    }
+
+    /**
+     * Asks the writer to send everything written so far and flush the real stream, without waiting for it to.
+     */
+    @Override
+    public void flush() throws IOException {
+        checkOpen();
+        flushTo = head;
+        wakeWriter();
+    }
+
+    /**
+     * Waits until everything written so far has been sent and the real stream has been flushed, or has failed.
+     */
+    public void drain() {
+        long target = head;
+        flushTo = target;
+        wakeWriter();
+        waitForWriter(() -> flushed >= target);
+    }
+
+    /**
+     * Sends everything still waiting, stops the writer and closes the real stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        drain();
+        closed = true;
+        wakeWriter();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        out.close();
+    }
+
+    /**
+     * @throws IOException if the real stream has failed or this stream has been closed.
+     */
+    private void checkOpen() throws IOException {
+        if (failure != null) {
+            throw new IOException("output failed", failure);
+        }
+        if (closed) {
+            throw new IOException("output closed");
+        }
+    }
+
+    private void wakeWriter() {
+        if (writerSleeping) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * Parks the game's thread until the writer has done enough, or has failed or stopped.
+     */
+    private void waitForWriter(Condition done) {
+        waitingGame = Thread.currentThread();
+        wakeWriter();
+        while (!done.isMet() && failure == null && writer.isAlive()) {
+            LockSupport.parkNanos(this, 10_000_000L);
+        }
+        waitingGame = null;
+    }
+
+    /**
+     * The writer thread: sends whatever is in the ring, flushes when asked, and sleeps when there is nothing to do.
+     */
+    private void writeLoop() {
+        try {
+            while (true) {
+                long start = tail;
+                long end = head;
+                if (start != end) {
+                    // send up to the end of the ring; anything that wrapped round goes next time
+                    int position = (int) (start & mask);
+                    int count = (int) Math.min(end - start, ring.length - position);
+                    out.write(ring, position, count);
+                    tail = start + count;
+                    wakeGame();
+                    continue;
+                }
+                long target = flushTo;
+                if (target > flushed) {
+                    out.flush();
+                    flushed = target;
+                    wakeGame();
+                    continue;
+                }
+                if (closed) {
+                    return;
+                }
+                writerSleeping = true;
+                // check again after saying so, in case the game wrote or flushed just before it looked
+                if (head == tail && flushTo <= flushed && !closed) {
+                    LockSupport.park(this);
+                }
+                writerSleeping = false;
+            }
+        } catch (IOException e) {
+            failure = e;
+            wakeGame();
+        }
+    }
+
+    private void wakeGame() {
+        Thread game = waitingGame;
+        if (game != null) {
+            LockSupport.unpark(game);
+        }
+    }
+
+    /**
+     * Something the game's thread waits for.
+     */
+    private interface Condition {
+        boolean isMet();
+    }
+}
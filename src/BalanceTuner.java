@@ -0,0 +1,418 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The BalanceTuner class sweeps the game's balancing numbers over a grid and measures the bot's win rate in each
+ * cell, spending its games where they are needed.<p>
+ * Every cell starts with a small batch of games. After each round, a cell whose 95% Wilson confidence interval is
+ * already narrower than the target width stops; the others are given about as many more games as their current
+ * estimate says they still need, so cells near 0% or 100% finish quickly and the budget goes to the uncertain ones
+ * near the middle. All the games of a round, across every cell, run in parallel on every core. <p>
+ * Game i of every cell is played from the same seed, so neighbouring cells differ only by the numbers being swept,
+ * not by luck. Games are played by BatchSimulator's bot (ShovelFirstStrategy). <p>
+ * The sweepable numbers are toughness, markdown, gold (starting gold), toughodds and mildodds (the no-trouble odds in
+ * tough and sleepy towns), breaks (the chance an item breaks) and treasure (the chance a town hides a real treasure).
+ * Anything not swept keeps the mode's value. <p>
+ * Two files are written: the CSV named by out=, with one row per cell and its win rate, interval and games played,
+ * and a second CSV (ending in -heatmap.csv) with the win rates laid out as a grid. <p>
+ * Usage: java BalanceTuner [mode=n] [name=from:to:steps]... [width=0.02] [budget=20000000] [seed=42]
+ * [out=balance.csv] <p>
+ * For example: java BalanceTuner mode=n toughness=0.2:0.8:7 gold=10:40:7
+ */
+
+public class BalanceTuner {
+    // constants
+    private static final String[] PARAMETERS = {"toughness", "markdown", "gold", "toughodds", "mildodds", "breaks",
+            "treasure"};
+    private static final double Z = 1.96;
+    private static final int FIRST_BATCH = 500;
+    private static final int MAX_BATCH = 50_000;
+    private static final int TASK_GAMES = 250;
+
+    // instance variables
+    private DifficultyProfile base;
+    private List<Axis> axes;
+    private double width;
+    private long budget;
+    private long seed;
+    private List<Cell> cells;
+    private long gamesPlayed;
+    private int rounds;
+
+    /**
+     * @param base The difficulty whose numbers are used for anything not swept.
+     * @param axes The numbers to sweep; the grid has a cell for every combination of their values.
+     * @param width The widest a cell's 95% confidence interval may be before it stops, such as 0.02 for +/-1%.
+     * @param budget The most games to play in the whole sweep.
+     * @param seed The seed of every cell's games.
+     */
+    public BalanceTuner(DifficultyProfile base, List<Axis> axes, double width, long budget, long seed) {
+        this.base = base;
+        this.axes = axes;
+        this.width = width;
+        this.budget = budget;
+        this.seed = seed;
+        cells = new ArrayList<>();
+        addCells(new double[axes.size()], 0);
+        gamesPlayed = 0;
+        rounds = 0;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String mode = "n";
+        double width = 0.02;
+        long budget = 20_000_000;
+        long seed = 42;
+        Path out = Path.of("balance.csv");
+        List<Axis> axes = new ArrayList<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals < 0) {
+                System.out.println("Expected name=value, not " + arg);
+                return;
+            }
+            String name = arg.substring(0, equals);
+            String value = arg.substring(equals + 1);
+            if (name.equals("mode")) {
+                mode = value;
+            } else if (name.equals("width")) {
+                width = Double.parseDouble(value);
+            } else if (name.equals("budget")) {
+                budget = Long.parseLong(value);
+            } else if (name.equals("seed")) {
+                seed = Long.parseLong(value);
+            } else if (name.equals("out")) {
+                out = Path.of(value);
+            } else {
+                Axis axis = Axis.parse(name, value);
+                if (axis == null) {
+                    System.out.println("Can't sweep " + arg + "; try toughness=0.2:0.8:7 with one of "
+                            + String.join(", ", PARAMETERS));
+                    return;
+                }
+                axes.add(axis);
+            }
+        }
+        if (axes.isEmpty()) {
+            axes.add(Axis.parse("toughness", "0.2:0.8:7"));
+            axes.add(Axis.parse("gold", "10:40:7"));
+        }
+        DifficultyProfile difficulty = DifficultyProfile.forMode(mode);
+        if (difficulty == null) {
+            System.out.println("Unknown mode: " + mode);
+            return;
+        }
+
+        BalanceTuner tuner = new BalanceTuner(difficulty, axes, width, budget, seed);
+        long start = System.nanoTime();
+        boolean converged = tuner.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        tuner.writeCsv(out);
+        Path heatmap = heatmapPath(out);
+        tuner.writeHeatmap(heatmap);
+        System.out.println("Swept " + tuner.cells.size() + " " + difficulty.getName() + " cells with "
+                + tuner.gamesPlayed + " games in " + tuner.rounds + " rounds on "
+                + Runtime.getRuntime().availableProcessors() + " cores in " + String.format("%.2f", seconds) + "s");
+        if (!converged) {
+            System.out.println("The budget ran out before every cell was within +/-" + width / 2);
+        }
+        System.out.println("Wrote " + out + " and " + heatmap);
+    }
+
+    /**
+     * Plays rounds of games until every cell's interval is narrow enough or the budget is spent.
+     *
+     * @return true if every cell got narrow enough.
+     */
+    public boolean run() {
+        while (true) {
+            List<Task> tasks = new ArrayList<>();
+            long roundGames = 0;
+            for (Cell cell : cells) {
+                if (cell.isDone(width)) {
+                    continue;
+                }
+                long games = Math.min(cell.gamesNeeded(width), budget - gamesPlayed - roundGames);
+                for (long from = cell.games; from < cell.games + games; from += TASK_GAMES) {
+                    tasks.add(new Task(cell, from, Math.min(from + TASK_GAMES, cell.games + games)));
+                }
+                roundGames += games;
+            }
+            if (tasks.isEmpty()) {
+                break;
+            }
+            tasks.parallelStream().forEach(Task::play);
+            gamesPlayed += roundGames;
+            rounds++;
+        }
+        for (Cell cell : cells) {
+            if (!cell.isDone(width)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes one row per cell: the swept values, the games played and won, the win rate and its 95% interval.
+     *
+     * @param path The file to write.
+     * @throws IOException if the file can't be written.
+     */
+    public void writeCsv(Path path) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+            for (Axis axis : axes) {
+                out.print(axis.name + ",");
+            }
+            out.println("games,wins,win_rate,low,high");
+            for (Cell cell : cells) {
+                for (double value : cell.values) {
+                    out.print(format(value) + ",");
+                }
+                double[] interval = cell.interval();
+                out.println(cell.games + "," + cell.wins + "," + format(cell.winRate()) + "," + format(interval[0])
+                        + "," + format(interval[1]));
+            }
+        }
+    }
+
+    /**
+     * Writes the win rates as a grid, with the first axis down the side and the second across the top. With more
+     * than two axes, each combination of the others gets its own block, headed by their values.
+     *
+     * @param path The file to write.
+     * @throws IOException if the file can't be written.
+     */
+    public void writeHeatmap(Path path) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+            Axis rows = axes.get(0);
+            int columnCount = 1;
+            StringBuilder header = new StringBuilder(rows.name);
+            if (axes.size() > 1) {
+                Axis columns = axes.get(1);
+                columnCount = columns.values.length;
+                header.append("\\").append(columns.name);
+                for (double value : columns.values) {
+                    header.append(',').append(format(value));
+                }
+            } else {
+                header.append(",win_rate");
+            }
+            // the other axes change fastest, so each of their combinations is one offset into the list of cells
+            int blocks = cells.size() / (rows.values.length * columnCount);
+            for (int block = 0; block < blocks; block++) {
+                Cell first = cells.get(block);
+                for (int a = 2; a < axes.size(); a++) {
+                    out.println(axes.get(a).name + "=" + format(first.values[a]));
+                }
+                out.println(header);
+                for (int r = 0; r < rows.values.length; r++) {
+                    out.print(format(rows.values[r]));
+                    for (int c = 0; c < columnCount; c++) {
+                        out.print("," + format(cells.get(block + (r * columnCount + c) * blocks).winRate()));
+                    }
+                    out.println();
+                }
+                if (axes.size() > 2) {
+                    out.println();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return how many games the sweep has played.
+     */
+    public long getGamesPlayed() {
+        return gamesPlayed;
+    }
+
+    /**
+     * Makes a cell for every combination of the axes' values, the first axis changing slowest.
+     */
+    private void addCells(double[] values, int axis) {
+        if (axis == axes.size()) {
+            cells.add(new Cell(values.clone()));
+            return;
+        }
+        for (double value : axes.get(axis).values) {
+            values[axis] = value;
+            addCells(values, axis + 1);
+        }
+    }
+
+    /**
+     * @return the base difficulty with a cell's values swapped in.
+     */
+    private DifficultyProfile profile(double[] values) {
+        double[] numbers = {base.getToughness(), base.getMarkdown(), base.getStartingGold(),
+                base.getNoTroubleChance(true), base.getNoTroubleChance(false), base.getBreakChance(),
+                base.getTreasureChance()};
+        for (int a = 0; a < axes.size(); a++) {
+            numbers[axes.get(a).parameter] = values[a];
+        }
+        return new DifficultyProfile(base.getMode(), base.getName(), numbers[0], numbers[1], (int) Math.round(numbers[2]),
+                numbers[3], numbers[4], numbers[5], base.getKitSize(), base.isSwordsForSale(), base.isFullKit(),
+                numbers[6]);
+    }
+
+    private static Path heatmapPath(Path out) {
+        String name = out.getFileName().toString();
+        if (name.endsWith(".csv")) {
+            name = name.substring(0, name.length() - 4);
+        }
+        return out.resolveSibling(name + "-heatmap.csv");
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e9) {
+            return String.valueOf((long) value);
+        }
+        return String.format("%.4f", value);
+    }
+
+    /**
+     * One number being swept, and the values it takes.
+     */
+    public static class Axis {
+        private final String name;
+        private final int parameter;
+        private final double[] values;
+
+        private Axis(String name, int parameter, double[] values) {
+            this.name = name;
+            this.parameter = parameter;
+            this.values = values;
+        }
+
+        /**
+         * @param name One of toughness, markdown, gold, toughodds, mildodds, breaks or treasure.
+         * @param range "from:to:steps", such as "0.2:0.8:7"; a single number sweeps just that value.
+         * @return the axis, or null if the name or range isn't understood.
+         */
+        public static Axis parse(String name, String range) {
+            int parameter = -1;
+            for (int p = 0; p < PARAMETERS.length; p++) {
+                if (PARAMETERS[p].equals(name)) {
+                    parameter = p;
+                }
+            }
+            if (parameter < 0) {
+                return null;
+            }
+            String[] parts = range.split(":");
+            try {
+                double from = Double.parseDouble(parts[0]);
+                if (parts.length == 1) {
+                    return new Axis(name, parameter, new double[]{from});
+                }
+                if (parts.length != 3) {
+                    return null;
+                }
+                double to = Double.parseDouble(parts[1]);
+                int steps = Integer.parseInt(parts[2]);
+                if (steps < 2) {
+                    return null;
+                }
+                double[] values = new double[steps];
+                for (int i = 0; i < steps; i++) {
+                    values[i] = from + (to - from) * i / (steps - 1);
+                }
+                return new Axis(name, parameter, values);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * One point on the grid and the games played there so far.
+     */
+    private class Cell {
+        private final double[] values;
+        private final DifficultyProfile difficulty;
+        private long games;
+        private long wins;
+
+        private Cell(double[] values) {
+            this.values = values;
+            difficulty = profile(values);
+        }
+
+        private synchronized void add(long played, long won) {
+            games += played;
+            wins += won;
+        }
+
+        private double winRate() {
+            if (games == 0) {
+                return 0;
+            }
+            return (double) wins / games;
+        }
+
+        /**
+         * @return the 95% Wilson score interval of the win rate, as {low, high}.
+         */
+        private double[] interval() {
+            if (games == 0) {
+                return new double[]{0, 1};
+            }
+            double p = winRate();
+            double z2n = Z * Z / games;
+            double centre = (p + z2n / 2) / (1 + z2n);
+            double half = Z * Math.sqrt(p * (1 - p) / games + z2n / (4 * games)) / (1 + z2n);
+            return new double[]{Math.max(0, centre - half), Math.min(1, centre + half)};
+        }
+
+        private boolean isDone(double width) {
+            double[] interval = interval();
+            return games > 0 && interval[1] - interval[0] <= width;
+        }
+
+        /**
+         * @return roughly how many more games it will take to get the interval narrow enough, going by the win rate
+         * so far (or the worst case of 50% before any games), within the batch limits.
+         */
+        private long gamesNeeded(double width) {
+            if (games == 0) {
+                return FIRST_BATCH;
+            }
+            double p = Math.min(Math.max(winRate(), 0.01), 0.99);
+            double half = width / 2;
+            long total = (long) Math.ceil(Z * Z * p * (1 - p) / (half * half));
+            // aim a little past the estimate so the last round usually finishes the cell
+            long needed = total + total / 10 - games;
+            return Math.max(FIRST_BATCH, Math.min(MAX_BATCH, needed));
+        }
+    }
+
+    /**
+     * A run of consecutive games in one cell; a round's games are split into these so every core gets a share.
+     */
+    private class Task {
+        private final Cell cell;
+        private final long from;
+        private final long to;
+
+        private Task(Cell cell, long from, long to) {
+            this.cell = cell;
+            this.from = from;
+            this.to = to;
+        }
+
+        private void play() {
+            long won = 0;
+            for (long i = from; i < to; i++) {
+                if (BatchSimulator.playGame(cell.difficulty, BatchSimulator.gameSeed(seed, i))) {
+                    won++;
+                }
+            }
+            cell.add(to - from, won);
+        }
+    }
+}
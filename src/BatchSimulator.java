@@ -0,0 +1,82 @@
+import java.util.stream.LongStream;
+
+/**
+ * The BatchSimulator class plays huge numbers of Treasure Hunter games with no console, using every core.<p>
+ * Each game is its own GameEngine driven by a simple bot (ShovelFirstStrategy), so the games never share any state.
+ * Game number i is seeded from the base seed and i, so any single game can be replayed on its own. <p>
+ * Usage: java BatchSimulator [games] [mode] [seed]
+ */
+
+public class BatchSimulator {
+    // constants
+    static final int MAX_TURNS = 500;
+    private static final Strategy BOT = new ShovelFirstStrategy();
+
+    public static void main(String[] args) {
+        long games = 1_000_000;
+        String mode = "n";
+        long seed = 42;
+        if (args.length > 0) {
+            games = Long.parseLong(args[0]);
+        }
+        if (args.length > 1) {
+            mode = args[1];
+        }
+        if (args.length > 2) {
+            seed = Long.parseLong(args[2]);
+        }
+        final DifficultyProfile difficulty = DifficultyProfile.forMode(mode);
+        if (difficulty == null) {
+            System.out.println("Unknown mode: " + mode);
+            return;
+        }
+
+        final long baseSeed = seed;
+        long start = System.nanoTime();
+        long wins = LongStream.range(0, games).parallel().filter(i -> playGame(difficulty, gameSeed(baseSeed, i))).count();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println("Played " + games + " " + difficulty.getName() + " games on "
+                + Runtime.getRuntime().availableProcessors() + " cores in " + String.format("%.2f", seconds) + "s");
+        System.out.println("Wins: " + wins + " (" + String.format("%.2f", 100.0 * wins / games) + "%)");
+        System.out.println("Games per second: " + String.format("%.0f", games / seconds));
+    }
+
+    /**
+     * @param baseSeed The seed of the whole batch.
+     * @param index Which game in the batch.
+     * @return the seed of that game.
+     */
+    public static long gameSeed(long baseSeed, long index) {
+        return GameRandom.mix64(baseSeed + index * 0x9e3779b97f4a7c15L);
+    }
+
+    /**
+     * Plays one game to the end with the bot.
+     *
+     * @param difficulty The difficulty to play at.
+     * @param seed The seed of the game.
+     * @return true if the bot found all three treasures.
+     */
+    public static boolean playGame(DifficultyProfile difficulty, long seed) {
+        return playGame(difficulty, seed, BOT).isWon();
+    }
+
+    /**
+     * Plays one game to the end, or until it has gone on for MAX_TURNS moves.
+     *
+     * @param difficulty The difficulty to play at.
+     * @param seed The seed of the game.
+     * @param strategy The bot to play it.
+     * @return the finished game.
+     */
+    public static GameEngine playGame(DifficultyProfile difficulty, long seed, Strategy strategy) {
+        GameEngine game = new GameEngine("bot", difficulty, seed);
+        GameView view = new GameView(game);
+        while (!game.isGameOver() && game.getTurns() < MAX_TURNS) {
+            game.perform(strategy.nextAction(view));
+            game.takeLatestNews();
+        }
+        return game;
+    }
+}
@@ -18,4 +18,35 @@ public class Colors {
 
     public static final String WHITE = "\033[0;37m";   // WHITE
 
-}
\ No newline at end of file
+    /**
+     * Takes the color codes out of some text, for screens and programs that can't show them.
+     * Text with no codes in it is handed back as it is.
+     *
+     * @param text Text that may contain color codes.
+     * @return the same text without them.
+     */
+    public static String strip(String text) {
+        int escape = text.indexOf('\033');
+        if (escape < 0) {
+            return text;
+        }
+        StringBuilder plain = new StringBuilder(text.length());
+        int i = 0;
+        while (escape >= 0) {
+            plain.append(text, i, escape);
+            // every code here ends with the letter m
+            int end = text.indexOf('m', escape);
+            if (end < 0) {
+                i = text.length();
+                break;
+            }
+            i = end + 1;
+            escape = text.indexOf('\033', i);
+        }
+        if (i < text.length()) {
+            plain.append(text, i, text.length());
+        }
+        return plain.toString();
+    }
+
+}
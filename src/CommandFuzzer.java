@@ -0,0 +1,382 @@
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * The CommandFuzzer class plays huge numbers of games from random commands, checking after every step that the
+ * game never gets into a state it shouldn't.<p>
+ * Each stream of commands is made from its own seed: a mode, then menu choices, shopping answers, "/style"
+ * switches, undos and junk, as a careless or malicious player might type them. The stream is played by a real
+ * TreasureHunter through TreasureHunter.processChoice() and Shop.enter(), on a console whose output goes nowhere.
+ * The console checks the hunter at every menu screen and every GameEvent:
+ * <ul>
+ *   <li>gold is never negative;</li>
+ *   <li>the kit only holds real items, each at most once, and never more than the kit size;</li>
+ *   <li>an item is only bought when there is room for it in the kit;</li>
+ *   <li>the treasures are real ones, found in order, and no treasure is ever held twice;</li>
+ *   <li>nothing throws an exception.</li>
+ * </ul>
+ * Streams are played in parallel on every core, and a failing stream is shrunk: first cut off after the command
+ * that failed, then chunks of it are taken out for as long as it still fails the same way, leaving a short list of
+ * commands that can be pasted into TreasureHunterRunner with the same seed to watch it go wrong. <p>
+ * The gold limit makes any game that gets more gold than that fail, to try out the shrinking. <p>
+ * Usage: java CommandFuzzer [streams] [commands per stream] [seed] [gold limit]
+ */
+
+public class CommandFuzzer {
+    // constants
+    private static final String NAME = "fuzzer";
+    private static final String[] MODES = {"e", "n", "h", "s", "test"};
+    private static final String[] MOVES = {"b", "s", "e", "m", "l", "h", "d", "u", "v"};
+    private static final String[] JUNK = {"", "q", "zz", "bb", "sword", "/style", "/style plain", "/style json",
+            "/style ansi", "/style bogus"};
+    private static final int REPORTED_FAILURES = 5;
+    private static final int VALID_KIT = (1 << Item.count()) - 1;
+
+    // instance variables
+    private int streams;
+    private int length;
+    private long seed;
+    private int goldLimit;
+    private AtomicLong steps;
+
+    /**
+     * @param streams How many command streams to play.
+     * @param length How many commands are in each stream.
+     * @param seed The seed every stream's seed is worked out from.
+     * @param goldLimit A game fails if its gold goes over this; Integer.MAX_VALUE to only check the real invariants.
+     */
+    public CommandFuzzer(int streams, int length, long seed, int goldLimit) {
+        this.streams = streams;
+        this.length = length;
+        this.seed = seed;
+        this.goldLimit = goldLimit;
+        steps = new AtomicLong();
+    }
+
+    public static void main(String[] args) {
+        int streams = 100_000;
+        int length = 200;
+        long seed = 42;
+        int goldLimit = Integer.MAX_VALUE;
+        if (args.length > 0) {
+            streams = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            length = Integer.parseInt(args[1]);
+        }
+        if (args.length > 2) {
+            seed = Long.parseLong(args[2]);
+        }
+        if (args.length > 3) {
+            goldLimit = Integer.parseInt(args[3]);
+        }
+
+        CommandFuzzer fuzzer = new CommandFuzzer(streams, length, seed, goldLimit);
+        long start = System.nanoTime();
+        List<Integer> failed = fuzzer.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println("Played " + streams + " streams (" + fuzzer.steps.get() + " checked steps) on "
+                + Runtime.getRuntime().availableProcessors() + " cores in " + String.format("%.2f", seconds) + "s ("
+                + String.format("%.0f", fuzzer.steps.get() / seconds) + " steps per second)");
+        if (failed.isEmpty()) {
+            System.out.println("Passed: every invariant held");
+            return;
+        }
+        System.out.println("FAILED: " + failed.size() + " streams broke an invariant");
+        for (int i = 0; i < Math.min(REPORTED_FAILURES, failed.size()); i++) {
+            System.out.print(fuzzer.report(failed.get(i)));
+        }
+        System.exit(1);
+    }
+
+    /**
+     * Plays every stream.
+     *
+     * @return the numbers of the streams that failed, lowest first.
+     */
+    public List<Integer> run() {
+        List<Integer> failed = new ArrayList<>(IntStream.range(0, streams).parallel()
+                .filter(stream -> play(gameSeed(stream), commands(stream)) != null)
+                .boxed()
+                .toList());
+        Collections.sort(failed);
+        return failed;
+    }
+
+    /**
+     * @return how many steps have been checked so far.
+     */
+    public long getSteps() {
+        return steps.get();
+    }
+
+    /**
+     * Shrinks a failing stream and describes it.
+     *
+     * @param stream The stream's number.
+     * @return what failed, the shrunk commands, and how to play them again.
+     */
+    public String report(int stream) {
+        long gameSeed = gameSeed(stream);
+        List<String> commands = commands(stream);
+        Failure failure = play(gameSeed, commands);
+        if (failure == null) {
+            return "Stream " + stream + " passed when played again\n";
+        }
+        List<String> shrunk = shrink(gameSeed, commands, failure);
+        String reason = play(gameSeed, shrunk).reason;
+        // an "x" at the end lets the game finish instead of running out of input
+        String input = NAME + "\n" + String.join("\n", shrunk) + "\nx\n";
+        return "Stream " + stream + " (seed " + gameSeed + "): " + reason + "\n"
+                + "  shrunk from " + commands.size() + " to " + shrunk.size() + " commands: "
+                + String.join("; ", shrunk) + "\n"
+                + "  play it with: printf '" + input.replace("\n", "\\n") + "' | java TreasureHunterRunner "
+                + gameSeed + "\n";
+    }
+
+    /**
+     * @return the seed of a stream's game.
+     */
+    private long gameSeed(int stream) {
+        return BatchSimulator.gameSeed(seed, stream);
+    }
+
+    /**
+     * Makes up a stream of commands, starting with the mode.
+     *
+     * @param stream The stream's number.
+     * @return the commands.
+     */
+    private List<String> commands(int stream) {
+        GameRandom random = new GameRandom(GameRandom.mix64(gameSeed(stream)));
+        List<String> commands = new ArrayList<>(length + 1);
+        commands.add(MODES[random.nextInt(MODES.length)]);
+        while (commands.size() <= length) {
+            int roll = random.nextInt(100);
+            if (roll < 70) {
+                String move = MOVES[random.nextInt(MOVES.length)];
+                commands.add(move);
+                if (move.equals("b") || move.equals("s")) {
+                    // mostly things the shop deals in, and mostly saying yes
+                    commands.add(Item.byOrdinal(random.nextInt(Item.count())).getItemName());
+                    commands.add(random.nextInt(4) == 0 ? "n" : "y");
+                }
+            } else if (roll < 71) {
+                commands.add("x");
+            } else if (roll < 85) {
+                commands.add(Item.byOrdinal(random.nextInt(Item.count())).getItemName());
+            } else if (roll < 90) {
+                commands.add(random.nextInt(2) == 0 ? "y" : "n");
+            } else {
+                commands.add(JUNK[random.nextInt(JUNK.length)]);
+            }
+        }
+        return commands;
+    }
+
+    /**
+     * Plays one stream of commands to the end of the game or the end of the stream.
+     *
+     * @param gameSeed The game's seed.
+     * @param commands The commands, starting with the mode.
+     * @return the first invariant broken, or null if the game stayed sound.
+     */
+    private Failure play(long gameSeed, List<String> commands) {
+        String input = NAME + "\n" + String.join("\n", commands) + "\n";
+        DifficultyProfile difficulty = DifficultyProfile.forMode(commands.isEmpty() ? "" : commands.get(0));
+        int kitSize = Item.count();
+        if (difficulty != null) {
+            kitSize = difficulty.getKitSize();
+        }
+        CheckingConsole console = new CheckingConsole(input, kitSize, goldLimit);
+        TreasureHunter game = new TreasureHunter(console, gameSeed);
+        game.setSaveFile(null);
+        game.setJournalFolder(null);
+        try {
+            game.play();
+        } catch (Failure failure) {
+            return failure;
+        } catch (NoSuchElementException e) {
+            // the stream ran out before the game ended
+        } catch (RuntimeException e) {
+            return new Failure("threw " + e, console.commandsRead);
+        } finally {
+            steps.addAndGet(console.checks);
+        }
+        return null;
+    }
+
+    /**
+     * Takes commands out of a failing stream for as long as it keeps failing the same way.
+     *
+     * @param gameSeed The game's seed.
+     * @param commands The failing commands.
+     * @param failure How they fail.
+     * @return the shortest stream found that fails the same way.
+     */
+    private List<String> shrink(long gameSeed, List<String> commands, Failure failure) {
+        // nothing after the command that failed matters; the name isn't in the list, hence the - 1
+        List<String> current = new ArrayList<>(commands.subList(0, Math.min(commands.size(),
+                Math.max(1, failure.commandsRead - 1))));
+        Failure cut = play(gameSeed, current);
+        if (cut == null || !cut.invariant.equals(failure.invariant)) {
+            // a "/style" command reads two words at once, so the count can be short
+            current = new ArrayList<>(commands);
+        }
+        int chunk = Math.max(1, current.size() / 2);
+        while (true) {
+            boolean shrunk = false;
+            // the mode stays, so the game is played at the same difficulty
+            int start = 1;
+            while (start < current.size()) {
+                List<String> candidate = new ArrayList<>(current.subList(0, start));
+                candidate.addAll(current.subList(Math.min(current.size(), start + chunk), current.size()));
+                Failure again = play(gameSeed, candidate);
+                if (again != null && again.invariant.equals(failure.invariant)) {
+                    current = candidate;
+                    shrunk = true;
+                } else {
+                    start += chunk;
+                }
+            }
+            if (chunk == 1 && !shrunk) {
+                return current;
+            }
+            if (!shrunk) {
+                chunk = Math.max(1, chunk / 2);
+            }
+        }
+    }
+
+    /**
+     * A broken invariant; thrown from the console to stop the game at once.
+     */
+    private static class Failure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final String invariant;
+        private final String reason;
+        private final int commandsRead;
+
+        private Failure(String reason, int commandsRead) {
+            super(reason, null, false, false);
+            this.reason = reason;
+            this.commandsRead = commandsRead;
+            int colon = reason.indexOf(':');
+            if (colon < 0) {
+                invariant = reason;
+            } else {
+                invariant = reason.substring(0, colon);
+            }
+        }
+    }
+
+    /**
+     * A console that reads a stream of commands, throws its output away, and checks the hunter at every menu
+     * screen and every GameEvent.
+     */
+    private static class CheckingConsole extends GameConsole {
+        private final int kitSize;
+        private final int goldLimit;
+        private Hunter hunter;
+        private int commandsRead;
+        private long checks;
+
+        private CheckingConsole(String input, int kitSize, int goldLimit) {
+            super(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)),
+                    new PrintStream(OutputStream.nullOutputStream()));
+            this.kitSize = kitSize;
+            this.goldLimit = goldLimit;
+            hunter = null;
+        }
+
+        @Override
+        public String readWord() {
+            commandsRead++;
+            return super.readWord();
+        }
+
+        @Override
+        public String readLine() {
+            commandsRead++;
+            return super.readLine();
+        }
+
+        @Override
+        public void frame(String news, Hunter hunter, Town town) {
+            // an undo puts a new hunter in the game, so the one to check is always the one on the screen
+            this.hunter = hunter;
+            check(null);
+            super.frame(news, hunter, town);
+        }
+
+        @Override
+        public void onEvent(GameEvent event) {
+            check(event);
+            super.onEvent(event);
+        }
+
+        /**
+         * @param event What just happened, or null at a menu screen.
+         * @throws Failure if the hunter is in a state they should never be in.
+         */
+        private void check(GameEvent event) {
+            if (hunter == null) {
+                return;
+            }
+            checks++;
+            int gold = hunter.getGold();
+            if (gold < 0) {
+                fail("negative gold: " + gold);
+            }
+            if (gold > goldLimit) {
+                fail("over the gold limit: " + gold);
+            }
+            int kit = hunter.getKit();
+            if ((kit & ~VALID_KIT) != 0) {
+                fail("unknown item in kit: " + Integer.toBinaryString(kit));
+            }
+            if (Integer.bitCount(kit) > kitSize) {
+                fail("kit overfull: " + Integer.bitCount(kit) + " items in a kit of " + kitSize);
+            }
+            if (event != null && event.getType() == GameEvent.Type.ITEM_BOUGHT) {
+                // the kit size was checked above, so there was room for the item before it was bought
+                if (!hunter.hasItemInKit(event.getItem())) {
+                    fail("bought item missing: " + event.getItem());
+                }
+            }
+            String[] treasures = hunter.getTreasures();
+            boolean gap = false;
+            for (int i = 0; i < treasures.length; i++) {
+                String treasure = treasures[i];
+                if (treasure == null) {
+                    gap = true;
+                    continue;
+                }
+                if (gap) {
+                    fail("treasure after an empty slot: " + treasure);
+                }
+                if (!treasure.equals("Crown") && !treasure.equals("Trophy") && !treasure.equals("Gem")) {
+                    fail("not a treasure: " + treasure);
+                }
+                for (int j = 0; j < i; j++) {
+                    if (treasure.equals(treasures[j])) {
+                        fail("treasure awarded twice: " + treasure);
+                    }
+                }
+            }
+        }
+
+        private void fail(String reason) {
+            throw new Failure(reason, commandsRead);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The CommandJournal class keeps an append-only record of everything a player types during one game.<p>
+ * The journal starts with the game's seed, mode and hunter name, followed by one record per menu choice and
+ * one per shop visit. When the game ends, the hunter's final state is added, so a replay can check it gets
+ * to exactly the same place. JournalReplayer plays journals back without a console. <p>
+ * Recording never stops the game: if the file can't be written, the journal remembers the error and stops recording.
+ * Records are buffered and written a buffer at a time, and the rest when the journal is closed, so recording a
+ * command never waits on the disk. <p>
+ * File layout (DataOutputStream, big-endian):
+ * <pre>
+ *   int    magic "THJL"
+ *   byte   layout version
+ *   long   seed
+ *   UTF    mode
+ *   UTF    hunter name
+ *   int    towns on the map, or 0 for a new town after every move (from version 2)
+ *   then records, each starting with a type byte:
+ *   'C'  UTF choice                         a menu choice
+ *   'P'  UTF b-or-s, UTF item, byte y/n     a shop visit
+ *   'F'  int gold, int kit, UTF treasures   the hunter's final state (treasures joined with ",")
+ * </pre>
+ */
+
+public class CommandJournal implements Closeable {
+    // constants
+    static final int MAGIC = 0x54484a4c;
+    static final byte VERSION = 2;
+    static final byte CHOICE = 'C';
+    static final byte SHOP = 'P';
+    static final byte FINAL_STATE = 'F';
+
+    // instance variables
+    private DataOutputStream out;
+    private IOException error;
+
+    /**
+     * Starts a journal for a new game.
+     *
+     * @param path The journal file; it is replaced if it already exists.
+     * @param game The game being recorded; it must not have had any commands yet.
+     * @throws IOException if the file can't be written.
+     */
+    public CommandJournal(Path path, GameEngine game) throws IOException {
+        Path folder = path.toAbsolutePath().getParent();
+        if (folder != null) {
+            Files.createDirectories(folder);
+        }
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path.toFile())));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(game.getSeed());
+        out.writeUTF(game.getDifficulty().getMode());
+        out.writeUTF(game.getHunter().getHunterName());
+        out.writeInt(game.getWorldTowns());
+        error = null;
+    }
+
+    /**
+     * @return the error that stopped the recording, or null if everything has been written.
+     */
+    public IOException getError() {
+        return error;
+    }
+
+    /**
+     * Records a menu choice.
+     *
+     * @param choice What the player typed.
+     */
+    public void recordChoice(String choice) {
+        if (error != null) {
+            return;
+        }
+        try {
+            out.writeByte(CHOICE);
+            out.writeUTF(choice);
+        } catch (IOException e) {
+            error = e;
+        }
+    }
+
+    /**
+     * Records one visit to the shop.
+     *
+     * @param buyOrSell "b" or "s".
+     * @param item The item the player asked about.
+     * @param confirmed Whether the player said yes to the price.
+     */
+    public void recordShop(String buyOrSell, String item, boolean confirmed) {
+        if (error != null) {
+            return;
+        }
+        try {
+            out.writeByte(SHOP);
+            out.writeUTF(buyOrSell);
+            out.writeUTF(item);
+            out.writeBoolean(confirmed);
+        } catch (IOException e) {
+            error = e;
+        }
+    }
+
+    /**
+     * Records how the hunter ended up.
+     *
+     * @param hunter The hunter at the end of the game.
+     */
+    public void recordFinalState(Hunter hunter) {
+        if (error != null) {
+            return;
+        }
+        try {
+            out.writeByte(FINAL_STATE);
+            out.writeInt(hunter.getGold());
+            out.writeInt(hunter.getKit());
+            out.writeUTF(treasureList(hunter));
+            out.flush();
+        } catch (IOException e) {
+            error = e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * @param hunter A hunter.
+     * @return the hunter's treasures, in the order they were found, joined with commas.
+     */
+    static String treasureList(Hunter hunter) {
+        String list = "";
+        for (String treasure : hunter.getTreasures()) {
+            if (treasure != null) {
+                if (!list.isEmpty()) {
+                    list += ",";
+                }
+                list += treasure;
+            }
+        }
+        return list;
+    }
+}
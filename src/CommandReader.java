@@ -0,0 +1,99 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+
+/**
+ * The CommandReader class splits what the player types into the answers the game asks for.<p>
+ * A line can hold more than one command, separated by semicolons, and the words of a command answer the game's
+ * questions one after another, so "b shovel y; d; m" buys a shovel, digs and moves on without waiting for three
+ * more prompts. A line with one answer on it works just as it always has, so people typing at the terminal and
+ * scripts piped in line by line both play the same way. <p>
+ * Input is read through one large buffer, and the console can ask whether more is already waiting, so a long
+ * script runs as fast as the game can play it.
+ */
+
+public class CommandReader {
+    // constants
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // instance variables
+    private BufferedReader in;
+    private ArrayDeque<String> pending;
+
+    /**
+     * @param in Where the player's commands come from.
+     */
+    public CommandReader(InputStream in) {
+        this.in = new BufferedReader(new InputStreamReader(in), BUFFER_SIZE);
+        pending = new ArrayDeque<>();
+    }
+
+    /**
+     * @return the next word the player typed, or "" for an empty line or command.
+     * @throws NoSuchElementException if there is no more input.
+     */
+    public String nextWord() {
+        String command = nextCommand();
+        int space = 0;
+        while (space < command.length() && !Character.isWhitespace(command.charAt(space))) {
+            space++;
+        }
+        if (space < command.length()) {
+            // the rest of the command answers the next question
+            pending.addFirst(command.substring(space).trim());
+        }
+        return command.substring(0, space);
+    }
+
+    /**
+     * @return the rest of the current command, or the next one, with all its words; used for answers like a name.
+     * @throws NoSuchElementException if there is no more input.
+     */
+    public String nextLine() {
+        return nextCommand();
+    }
+
+    /**
+     * @return true if there is more input that can be read without waiting for the player.
+     */
+    public boolean hasBufferedInput() {
+        if (!pending.isEmpty()) {
+            return true;
+        }
+        try {
+            return in.ready();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Takes the next command, reading a new line if the last one has been used up.
+     */
+    private String nextCommand() {
+        if (pending.isEmpty()) {
+            String line;
+            try {
+                line = in.readLine();
+            } catch (IOException e) {
+                line = null;
+            }
+            if (line == null) {
+                throw new NoSuchElementException("No line found");
+            }
+            String[] commands = line.split(";", -1);
+            int count = commands.length;
+            if (count > 1 && commands[count - 1].isBlank()) {
+                // "d; m;" is two commands, not three
+                count--;
+            }
+            for (int i = 0; i < count; i++) {
+                pending.addLast(commands[i].trim());
+            }
+        }
+        return pending.removeFirst();
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * The DifficultyProfile class holds every number that changes with the game's difficulty.<p>
+ * The mode the player picks is turned into one of these once, at the start of the game,
+ * and the same object is handed to the hunter, the shop and every town. Nothing in it ever changes.
+ */
+
+public class DifficultyProfile {
+    // constants
+    public static final double DEFAULT_TREASURE_CHANCE = 0.75;
+    public static final DifficultyProfile EASY = new DifficultyProfile("e", "easy", 0.25, 1, 40, 0.75, 0.25, 0, 7, false, false);
+    public static final DifficultyProfile NORMAL = new DifficultyProfile("n", "normal", 0.4, 0.5, 20, 0.66, 0.33, 0.5, 7, false, false);
+    public static final DifficultyProfile HARD = new DifficultyProfile("h", "hard", 0.75, 0.25, 20, 0.6, 0.4, 0.5, 7, false, false);
+    public static final DifficultyProfile SAMURAI = new DifficultyProfile("s", "samurai", 0.4, 0.5, 20, 0.66, 0.33, 0.5, 8, true, false);
+    public static final DifficultyProfile TEST = new DifficultyProfile("test", "normal", 0.4, 0.5, 100, 0.66, 0.33, 0.5, 7, false, true);
+
+    // instance variables
+    private final String mode;
+    private final String name;
+    private final double toughness;
+    private final double markdown;
+    private final int startingGold;
+    private final double toughNoTroubleChance;
+    private final double mildNoTroubleChance;
+    private final double breakChance;
+    private final int kitSize;
+    private final boolean swordsForSale;
+    private final boolean fullKit;
+    private final double treasureChance;
+    private final PriceCatalog prices;
+
+    /**
+     * @param mode What the player types to pick this difficulty.
+     * @param name The name of the difficulty.
+     * @param toughness The chance that a town is a tough one.
+     * @param markdown Percentage of markdown for selling items in decimal format.
+     * @param startingGold The gold the hunter starts with.
+     * @param toughNoTroubleChance The odds used for finding and winning brawls in a tough town.
+     * @param mildNoTroubleChance The odds used for finding and winning brawls in a sleepy town.
+     * @param breakChance The chance that an item breaks when it is used to leave town.
+     * @param kitSize How many items the hunter can carry.
+     * @param swordsForSale Whether shops sell swords.
+     * @param fullKit Whether the hunter starts out with every item but the sword.
+     */
+    public DifficultyProfile(String mode, String name, double toughness, double markdown, int startingGold,
+                             double toughNoTroubleChance, double mildNoTroubleChance, double breakChance,
+                             int kitSize, boolean swordsForSale, boolean fullKit) {
+        this(mode, name, toughness, markdown, startingGold, toughNoTroubleChance, mildNoTroubleChance, breakChance,
+                kitSize, swordsForSale, fullKit, DEFAULT_TREASURE_CHANCE);
+    }
+
+    /**
+     * Makes a difficulty with different treasure odds; used for balancing.
+     *
+     * @param mode What the player types to pick this difficulty.
+     * @param name The name of the difficulty.
+     * @param toughness The chance that a town is a tough one.
+     * @param markdown Percentage of markdown for selling items in decimal format.
+     * @param startingGold The gold the hunter starts with.
+     * @param toughNoTroubleChance The odds used for finding and winning brawls in a tough town.
+     * @param mildNoTroubleChance The odds used for finding and winning brawls in a sleepy town.
+     * @param breakChance The chance that an item breaks when it is used to leave town.
+     * @param kitSize How many items the hunter can carry.
+     * @param swordsForSale Whether shops sell swords.
+     * @param fullKit Whether the hunter starts out with every item but the sword.
+     * @param treasureChance The chance that a town hides a real treasure rather than dust, split evenly between
+     *                       the three treasures.
+     */
+    public DifficultyProfile(String mode, String name, double toughness, double markdown, int startingGold,
+                             double toughNoTroubleChance, double mildNoTroubleChance, double breakChance,
+                             int kitSize, boolean swordsForSale, boolean fullKit, double treasureChance) {
+        this.mode = mode;
+        this.name = name;
+        this.toughness = toughness;
+        this.markdown = markdown;
+        this.startingGold = startingGold;
+        this.toughNoTroubleChance = toughNoTroubleChance;
+        this.mildNoTroubleChance = mildNoTroubleChance;
+        this.breakChance = breakChance;
+        this.kitSize = kitSize;
+        this.swordsForSale = swordsForSale;
+        this.fullKit = fullKit;
+        this.treasureChance = treasureChance;
+        prices = PriceCatalog.of(markdown, swordsForSale);
+    }
+
+    /**
+     * Turns the mode the player typed in into its difficulty.
+     *
+     * @param mode "e", "n", "h", "s" or "test".
+     * @return the matching profile, or null if the mode is unknown.
+     */
+    public static DifficultyProfile forMode(String mode) {
+        if (mode.equals("h")) {
+            return HARD;
+        } else if (mode.equals("e")) {
+            return EASY;
+        } else if (mode.equals("test")) {
+            return TEST;
+        } else if (mode.equals("n")) {
+            return NORMAL;
+        } else if (mode.equals("s")) {
+            return SAMURAI;
+        } else {
+            return null;
+        }
+    }
+
+    // accessors
+    public String getMode() {
+        return mode;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getToughness() {
+        return toughness;
+    }
+
+    public double getMarkdown() {
+        return markdown;
+    }
+
+    public int getStartingGold() {
+        return startingGold;
+    }
+
+    /**
+     * @param toughTown Whether the town is a tough one.
+     * @return the odds used for finding and winning brawls in that kind of town.
+     */
+    public double getNoTroubleChance(boolean toughTown) {
+        if (toughTown) {
+            return toughNoTroubleChance;
+        }
+        return mildNoTroubleChance;
+    }
+
+    public double getBreakChance() {
+        return breakChance;
+    }
+
+    public int getKitSize() {
+        return kitSize;
+    }
+
+    public boolean isSwordsForSale() {
+        return swordsForSale;
+    }
+
+    public boolean isFullKit() {
+        return fullKit;
+    }
+
+    /**
+     * @return the chance that a town hides a real treasure rather than dust.
+     */
+    public double getTreasureChance() {
+        return treasureChance;
+    }
+
+    public PriceCatalog getPrices() {
+        return prices;
+    }
+}
@@ -0,0 +1,185 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The FlightEvents class holds the Java Flight Recorder events the game emits, so a recording of a real session
+ * shows every move and every trip to the shop next to the GC, CPU and thread data.<p>
+ * Every event is off unless a recording turns it on, and the game only fills one in after shouldCommit() says it
+ * is wanted. With no recording running, or with these events off, the JIT folds shouldCommit() to false and throws
+ * the unused event away, so the events cost nothing and stay compiled in. None of them take a stack trace. <p>
+ * To record them, turn them on by name when starting the recording, for example:
+ * <pre>
+ *   java -XX:StartFlightRecording:filename=game.jfr,+TreasureHunter.Choice#enabled=true,+TreasureHunter.Trouble#enabled=true,... TreasureHunterRunner
+ * </pre>
+ * or in a .jfc settings file, and read them back with "jfr print --events TreasureHunter.Choice game.jfr" or in JDK
+ * Mission Control.
+ */
+
+public class FlightEvents {
+    private FlightEvents() {
+    }
+
+    /**
+     * One move of a game on the console, from the player's answer to the end of its effects. A trip to the shop
+     * includes the time spent waiting for the player to choose.
+     */
+    @Name("TreasureHunter.Choice")
+    @Label("Choice")
+    @Category({"Treasure Hunter", "Game"})
+    @Description("One menu choice carried out")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class Choice extends Event {
+        @Label("Command")
+        public String command;
+
+        @Label("Turn")
+        public int turn;
+
+        @Label("Gold After")
+        public int goldAfter;
+
+        @Label("Game Over")
+        public boolean gameOver;
+    }
+
+    /**
+     * A hunter looking for trouble.
+     */
+    @Name("TreasureHunter.Trouble")
+    @Label("Trouble")
+    @Category({"Treasure Hunter", "Town"})
+    @Description("A hunter looked for a brawl")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class Trouble extends Event {
+        @Label("Tough Town")
+        public boolean toughTown;
+
+        @Label("Brawl Found")
+        public boolean brawlFound;
+
+        @Label("Brawl Won")
+        public boolean brawlWon;
+
+        @Label("Gold Change")
+        public int goldChange;
+
+        @Label("Game Lost")
+        public boolean gameLost;
+    }
+
+    /**
+     * A hunter digging for gold.
+     */
+    @Name("TreasureHunter.Dig")
+    @Label("Dig")
+    @Category({"Treasure Hunter", "Town"})
+    @Description("A hunter dug for gold")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class Dig extends Event {
+        @Label("Gold Found")
+        public int goldFound;
+    }
+
+    /**
+     * A hunter hunting for a town's treasure.
+     */
+    @Name("TreasureHunter.Hunt")
+    @Label("Hunt")
+    @Category({"Treasure Hunter", "Town"})
+    @Description("A hunter hunted for the town's treasure")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class Hunt extends Event {
+        @Label("Treasure")
+        @Description("What was hidden in the town, or Dust")
+        public String treasure;
+
+        @Label("Found")
+        @Description("True if the hunter got the treasure, false for dust or a treasure they already had")
+        public boolean found;
+
+        @Label("Game Won")
+        public boolean gameWon;
+    }
+
+    /**
+     * A hunter trying to leave town.
+     */
+    @Name("TreasureHunter.LeaveTown")
+    @Label("Leave Town")
+    @Category({"Treasure Hunter", "Town"})
+    @Description("A hunter tried to cross the terrain out of town")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class LeaveTown extends Event {
+        @Label("Terrain")
+        public String terrain;
+
+        @Label("Item Needed")
+        public String item;
+
+        @Label("Left")
+        public boolean left;
+
+        @Label("Item Broken")
+        public boolean itemBroken;
+    }
+
+    /**
+     * A hunter trying to buy something at the shop.
+     */
+    @Name("TreasureHunter.Purchase")
+    @Label("Purchase")
+    @Category({"Treasure Hunter", "Shop"})
+    @Description("A hunter tried to buy an item")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class Purchase extends Event {
+        @Label("Item")
+        public String item;
+
+        @Label("Price")
+        @Description("The marked price; nothing is paid for an item given away")
+        public int price;
+
+        @Label("Bought")
+        public boolean bought;
+
+        @Label("Free")
+        public boolean free;
+
+        @Label("Gold After")
+        public int goldAfter;
+    }
+
+    /**
+     * A hunter trying to sell something to the shop.
+     */
+    @Name("TreasureHunter.Sale")
+    @Label("Sale")
+    @Category({"Treasure Hunter", "Shop"})
+    @Description("A hunter tried to sell an item")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class Sale extends Event {
+        @Label("Item")
+        public String item;
+
+        @Label("Price")
+        public int price;
+
+        @Label("Sold")
+        public boolean sold;
+
+        @Label("Gold After")
+        public int goldAfter;
+    }
+}
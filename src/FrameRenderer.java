@@ -0,0 +1,138 @@
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The FrameRenderer class draws one whole menu screen (a "frame") of the Treasure Hunter game.<p>
+ * The news, the hunter's info and the town's info are put together in one reusable buffer, the menu
+ * (which never changes) is added from bytes worked out ahead of time, and the frame goes out in a single write
+ * instead of one per line. It is sent when the console next waits for the player. <p>
+ * Without colors, the color codes are taken out of the buffer in place, so a plain frame costs no more garbage
+ * than a colored one.
+ */
+
+public class FrameRenderer {
+    // constants
+    private static final String MENU_TEXT = Colors.GREEN + "(B)" + Colors.RESET + "uy something at the shop.\n"
+            + Colors.GREEN + "(S)" + Colors.RESET + "ell something at the shop.\n"
+            + Colors.GREEN + "(E)" + Colors.RESET + "xplore surrounding terrain.\n"
+            + Colors.GREEN + "(M)" + Colors.RESET + "ove on to a different town.\n"
+            + Colors.GREEN + "(L)" + Colors.RESET + "ook for trouble!\n"
+            + Colors.GREEN + "(H)" + Colors.RESET + "unt for treasure.\n"
+            + Colors.GREEN + "(D)" + Colors.RESET + "ig for gold.\n"
+            + Colors.GREEN + "(U)" + Colors.RESET + "ndo your last move.\n"
+            + "Sa" + Colors.GREEN + "(V)" + Colors.RESET + "e your game.\n"
+            + "Give up the hunt and e" + Colors.GREEN + "(X)" + Colors.RESET + "it.\n"
+            + "\n"
+            + "What's your next move? ";
+    private static final byte[] MENU = MENU_TEXT.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PLAIN_MENU = Colors.strip(MENU_TEXT).getBytes(StandardCharsets.UTF_8);
+
+    // instance variables
+    private PrintStream out;
+    private byte[] menu;
+    private boolean colors;
+    private StringBuilder text;
+    private CharsetEncoder encoder;
+    private ByteBuffer frame;
+
+    /**
+     * @param out Where the frames are written.
+     */
+    public FrameRenderer(PrintStream out) {
+        this(out, true);
+    }
+
+    /**
+     * @param out Where the frames are written.
+     * @param colors Whether to keep the color codes.
+     */
+    public FrameRenderer(PrintStream out, boolean colors) {
+        this.out = out;
+        this.colors = colors;
+        if (colors) {
+            menu = MENU;
+        } else {
+            menu = PLAIN_MENU;
+        }
+        text = new StringBuilder(512);
+        encoder = StandardCharsets.UTF_8.newEncoder();
+        frame = ByteBuffer.allocate(2048);
+    }
+
+    /**
+     * Writes one menu screen.
+     *
+     * @param news The latest news from town.
+     * @param hunter The hunter, for their gold, kit and treasures.
+     * @param town The current town, for its surroundings.
+     */
+    public void render(String news, Hunter hunter, Town town) {
+        text.setLength(0);
+        text.append('\n').append(news).append('\n');
+        text.append("***\n");
+        text.append(hunter.infoString()).append('\n');
+        text.append(town.infoString()).append('\n');
+        if (!colors) {
+            stripColors();
+        }
+
+        frame.clear();
+        encodeText();
+        if (frame.remaining() < menu.length) {
+            grow(menu.length);
+        }
+        frame.put(menu);
+        // the console flushes when it waits for the player, so a frame is never flushed on its own
+        out.write(frame.array(), 0, frame.position());
+    }
+
+    /**
+     * Takes the color codes out of the text, moving the rest of the text down over them.
+     */
+    private void stripColors() {
+        int kept = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\033') {
+                // every code here ends with the letter m
+                while (i < text.length() && text.charAt(i) != 'm') {
+                    i++;
+                }
+            } else {
+                text.setCharAt(kept, c);
+                kept++;
+            }
+        }
+        text.setLength(kept);
+    }
+
+    /**
+     * Encodes the text part of the frame into the byte buffer, making the buffer bigger if it runs out of room.
+     */
+    private void encodeText() {
+        CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        CoderResult result = encoder.encode(chars, frame, true);
+        while (result.isOverflow()) {
+            grow(text.length());
+            result = encoder.encode(chars, frame, true);
+        }
+        encoder.flush(frame);
+    }
+
+    /**
+     * Makes the byte buffer bigger, keeping what has been written so far.
+     *
+     * @param extra At least this many more bytes are needed.
+     */
+    private void grow(int extra) {
+        ByteBuffer bigger = ByteBuffer.allocate(frame.capacity() * 2 + extra);
+        frame.flip();
+        bigger.put(frame);
+        frame = bigger;
+    }
+}
@@ -0,0 +1,184 @@
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+
+/**
+ * The GameConsole class is where a game reads the player's answers and writes what the player sees.<p>
+ * The game on the terminal uses the one console built on System.in and System.out; a game played over the network
+ * gets a console built on its connection's streams. Everything that talks to the player (TreasureHunter and Shop)
+ * goes through the same console, so they never read ahead of each other. <p>
+ * Answers come from a CommandReader, so a player or a script can give several at once ("b shovel y; d; m").
+ * Output is only sent when the game has to wait for the player; while there are answers already waiting it
+ * stays in the buffer, so a piped script isn't slowed down by a flush after every line. The console's output goes
+ * through an AsyncOutputStream, so even then the game only hands the text over and carries on; a writer thread
+ * puts it on the screen or the connection. <p>
+ * What the output looks like is up to the console's OutputRenderer. It starts with colors, and the player can
+ * switch at any prompt by typing "/style plain", "/style ansi" or "/style json".
+ */
+
+public class GameConsole implements GameListener {
+    // constants
+    private static final String STYLE_COMMAND = "/style";
+    private static final int OUT_BUFFER_SIZE = 1 << 18;
+
+    // static variables
+    private static GameConsole system = null;
+
+    // instance variables
+    private CommandReader in;
+    private PrintStream out;
+    private OutputRenderer renderer;
+
+    /**
+     * @param in Where the player's answers come from.
+     * @param out Where the player's screen goes.
+     */
+    public GameConsole(InputStream in, PrintStream out) {
+        this.in = new CommandReader(in);
+        this.out = out;
+        renderer = new TextRenderer(out, true);
+    }
+
+    /**
+     * @return the console on System.in and System.out.
+     */
+    public static synchronized GameConsole system() {
+        if (system == null) {
+            // System.out flushes at every newline, so the console gets its own stream on the same output
+            AsyncOutputStream async = new AsyncOutputStream(new FileOutputStream(FileDescriptor.out), OUT_BUFFER_SIZE);
+            PrintStream out = new PrintStream(async, false, System.out.charset());
+            system = new GameConsole(System.in, out);
+            // the writer thread doesn't keep the program running, so whatever it hasn't written yet is sent on the way out
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                out.flush();
+                async.drain();
+            }));
+        }
+        return system;
+    }
+
+    /**
+     * @param style "ansi", "plain" or "json".
+     * @return false if there is no such style, in which case nothing changes.
+     */
+    public boolean setStyle(String style) {
+        OutputRenderer styled = OutputRenderer.forStyle(style, out);
+        if (styled == null) {
+            return false;
+        }
+        renderer = styled;
+        return true;
+    }
+
+    public String getStyle() {
+        return renderer.getStyle();
+    }
+
+    /**
+     * Waits for the player's next answer, which is one word. Anything printed so far is sent first, unless the
+     * answer is already waiting. A "/style" command is carried out here and the console keeps waiting for the real
+     * answer.
+     *
+     * @return the next word the player typed, in lowercase, or "" if they just pressed enter.
+     * @throws java.util.NoSuchElementException if the player has gone away.
+     */
+    public String readWord() {
+        while (true) {
+            flushIfWaiting();
+            String word = in.nextWord().toLowerCase();
+            if (!word.equals(STYLE_COMMAND)) {
+                return word;
+            }
+            flushIfWaiting();
+            changeStyle(in.nextWord().toLowerCase());
+        }
+    }
+
+    /**
+     * Waits for an answer that can be more than one word, such as the player's name. Anything printed so far is sent
+     * first, unless the answer is already waiting. A "/style" command is carried out here and the console keeps
+     * waiting for the real answer.
+     *
+     * @return the rest of the player's command, in lowercase.
+     * @throws java.util.NoSuchElementException if the player has gone away.
+     */
+    public String readLine() {
+        while (true) {
+            flushIfWaiting();
+            String line = in.nextLine().toLowerCase();
+            if (!line.startsWith(STYLE_COMMAND + " ")) {
+                return line;
+            }
+            changeStyle(line.substring(STYLE_COMMAND.length()).trim());
+        }
+    }
+
+    /**
+     * Sends everything printed so far, without waiting for it to arrive.
+     */
+    public void flush() {
+        out.flush();
+    }
+
+    /**
+     * Sends everything printed so far, waits for it to be sent and closes the output.
+     */
+    public void close() {
+        out.close();
+    }
+
+    /**
+     * Sends everything printed so far if the player hasn't already given the next answer.
+     */
+    private void flushIfWaiting() {
+        if (!in.hasBufferedInput()) {
+            out.flush();
+        }
+    }
+
+    /**
+     * Carries out a "/style" command.
+     *
+     * @param style The style the player asked for.
+     */
+    private void changeStyle(String style) {
+        if (setStyle(style)) {
+            renderer.text("(Output style is now " + style + ".)\n");
+        } else {
+            renderer.text("(There is no " + style + " style; try ansi, plain or json.)\n");
+        }
+    }
+
+    public void print(String text) {
+        renderer.text(text);
+    }
+
+    public void println(String text) {
+        renderer.text(text + "\n");
+    }
+
+    public void println() {
+        renderer.text("\n");
+    }
+
+    /**
+     * Shows one menu screen.
+     *
+     * @param news The latest news from town.
+     * @param hunter The hunter, for their gold, kit and treasures.
+     * @param town The current town.
+     */
+    public void frame(String news, Hunter hunter, Town town) {
+        renderer.frame(news, hunter, town);
+    }
+
+    @Override
+    public void onEvent(GameEvent event) {
+        renderer.onEvent(event);
+    }
+
+    public PrintStream getOut() {
+        return out;
+    }
+}
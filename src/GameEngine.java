@@ -0,0 +1,459 @@
+/**
+ * The GameEngine class holds everything about one game of Treasure Hunter and carries out the player's commands.<p>
+ * It never reads from or prints to the console; every command returns the text the player should see instead.
+ * Each game keeps its own hunter, town, settings and random rolls, so any number of games can be played at the same time,
+ * and a game started from the same seed with the same commands always plays out the same way. <p>
+ * A game can be checkpointed as a GameState at any moment, then undone back to its last checkpoint or forked into
+ * new games that carry on from it. <p>
+ * The TreasureHunter class is the console front end for a GameEngine.
+ */
+
+public class GameEngine {
+    // constants
+    public static final int UNDO_LIMIT = 1000;
+
+    // instance variables
+    private Hunter hunter;
+    private Town currentTown;
+    private DifficultyProfile difficulty;
+    private boolean gameOver;
+    private long seed;
+    private GameRandom random;
+    private Shop shop;
+    private int turns;
+    private GameListener listener;
+    private WorldMap world;
+    // the checkpoints undo() goes back through, newest first
+    private GameState history;
+
+    /**
+     * Starts a new game: creates the hunter and puts them in their first town.
+     *
+     * @param name The hunter's name.
+     * @param difficulty The difficulty the player picked.
+     * @param seed The seed for every random roll in this game.
+     */
+    public GameEngine(String name, DifficultyProfile difficulty, long seed) {
+        this(name, difficulty, seed, 0);
+    }
+
+    /**
+     * Starts a new game, either with a brand new town after every move or on a WorldMap of towns
+     * that can be gone back to.
+     *
+     * @param name The hunter's name.
+     * @param difficulty The difficulty the player picked.
+     * @param seed The seed for every random roll in this game, and for the map.
+     * @param worldTowns How many towns are on the map, or 0 for no map.
+     */
+    public GameEngine(String name, DifficultyProfile difficulty, long seed, int worldTowns) {
+        this.difficulty = difficulty;
+        this.seed = seed;
+        random = new GameRandom(seed);
+        gameOver = false;
+        shop = new Shop(difficulty, random);
+        hunter = new Hunter(name, difficulty);
+        if (worldTowns > 0) {
+            world = new WorldMap(GameRandom.mix64(~seed), worldTowns, WorldMap.DEFAULT_CACHED_TOWNS);
+        }
+        enterTown();
+    }
+
+    /**
+     * Picks up a saved game.
+     *
+     * @param difficulty The game's difficulty.
+     * @param seed The seed the game was started with.
+     * @param randomState Where the game's random rolls had got to.
+     * @param hunter The rebuilt hunter.
+     * @param terrain The current town's terrain.
+     * @param toughTown Whether the current town is a tough one.
+     * @param treasure The current town's treasure.
+     * @param townHunted Whether the hunter has hunted in the current town.
+     * @param townSearched Whether the hunter has dug in the current town.
+     * @param gameOver Whether the game had already ended.
+     * @param turns How many turns had been played.
+     * @return the game, ready to carry on.
+     */
+    public static GameEngine resume(DifficultyProfile difficulty, long seed, long randomState, Hunter hunter,
+                                    Terrain terrain, boolean toughTown, String treasure, boolean townHunted,
+                                    boolean townSearched, boolean gameOver, int turns) {
+        GameEngine game = new GameEngine(difficulty, seed, randomState);
+        game.turns = turns;
+        game.hunter = hunter;
+        game.gameOver = gameOver;
+        game.currentTown = new Town(game.shop, difficulty, game.random, terrain, toughTown, treasure, townHunted, townSearched);
+        game.currentTown.hunterReturns(hunter);
+        return game;
+    }
+
+    /**
+     * Sets up everything but the hunter and town; used when picking up a saved game.
+     */
+    private GameEngine(DifficultyProfile difficulty, long seed, long randomState) {
+        this.difficulty = difficulty;
+        this.seed = seed;
+        random = new GameRandom(randomState);
+        gameOver = false;
+        shop = new Shop(difficulty, random);
+    }
+
+    /**
+     * Starts a new game from a checkpoint; used by GameState.resume().
+     *
+     * @param state The checkpoint.
+     * @return the game, carrying on from the checkpoint with the checkpoint's history to undo through.
+     */
+    static GameEngine fromState(GameState state) {
+        GameEngine game = new GameEngine(state.getDifficulty(), state.getSeed(), state.getRandomState());
+        game.hunter = state.newHunter();
+        game.currentTown = state.newTown(game.shop, game.random);
+        game.currentTown.hunterReturns(game.hunter);
+        game.currentTown.setPrintMessage("");
+        game.turns = state.getTurns();
+        game.gameOver = state.isGameOver();
+        game.history = state.getPrevious();
+        return game;
+    }
+
+    /**
+     * Starts a new game from the mode the player typed in.
+     *
+     * @param name The hunter's name.
+     * @param mode The mode the player picked: "e", "n", "h", "s" or "test".
+     * @param seed The seed for every random roll in this game.
+     */
+    public GameEngine(String name, String mode, long seed) {
+        this(name, checkedProfile(mode), seed);
+    }
+
+    /**
+     * @param mode The mode the player picked.
+     * @return its profile.
+     */
+    private static DifficultyProfile checkedProfile(String mode) {
+        DifficultyProfile difficulty = DifficultyProfile.forMode(mode);
+        if (difficulty == null) {
+            throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+        return difficulty;
+    }
+
+    // accessors
+    public Hunter getHunter() {
+        return hunter;
+    }
+
+    public Town getCurrentTown() {
+        return currentTown;
+    }
+
+    public DifficultyProfile getDifficulty() {
+        return difficulty;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return the map this game is played on, or null if every move makes a brand new town.
+     */
+    public WorldMap getWorld() {
+        return world;
+    }
+
+    /**
+     * @return how many towns are on the map, or 0 if there is no map.
+     */
+    public int getWorldTowns() {
+        if (world == null) {
+            return 0;
+        }
+        return world.getTownCount();
+    }
+
+    /**
+     * @return where the game's random rolls have got to, for saving the game.
+     */
+    public long getRandomState() {
+        return random.getState();
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * @return how many commands have been carried out, counting shopping and invalid choices.
+     */
+    public int getTurns() {
+        return turns;
+    }
+
+    /**
+     * @return true if the hunter has found all three treasures.
+     */
+    public boolean isWon() {
+        return hunter.emptyPositionInTreasures() == -1;
+    }
+
+    /**
+     * Starts recording what the player answers in the shop; null stops recording.
+     *
+     * @param journal The journal to record to.
+     */
+    public void setJournal(CommandJournal journal) {
+        shop.setJournal(journal);
+    }
+
+    /**
+     * Starts reporting everything that happens in the game as GameEvents; null stops reporting.
+     *
+     * @param listener Where to report to.
+     */
+    public void setListener(GameListener listener) {
+        this.listener = listener;
+        shop.setListener(listener);
+        currentTown.setListener(listener);
+    }
+
+    /**
+     * Checkpoints the game as it is now, without changing anything. The checkpoint's history is the game's
+     * history, so a game resumed from it can be undone back through everything before it.
+     *
+     * @return the checkpoint.
+     * @throws IllegalStateException if the game is played on a map.
+     */
+    public GameState capture() {
+        return GameState.of(this, history);
+    }
+
+    /**
+     * Checkpoints the game as it is now and adds the checkpoint to its history, so undo() can come back here.
+     * Only the newest UNDO_LIMIT or so checkpoints are kept.
+     *
+     * @return the checkpoint.
+     * @throws IllegalStateException if the game is played on a map.
+     */
+    public GameState checkpoint() {
+        history = capture();
+        if (history.getDepth() > 2 * UNDO_LIMIT) {
+            history = history.keepNewest(UNDO_LIMIT);
+        }
+        return history;
+    }
+
+    /**
+     * Puts the game back the way it was at the last checkpoint, including the random rolls, and takes that
+     * checkpoint off the history. The town's news is cleared.
+     *
+     * @return false if there was no checkpoint to go back to.
+     */
+    public boolean undo() {
+        if (history == null) {
+            return false;
+        }
+        random.setState(history.getRandomState());
+        hunter = history.newHunter();
+        currentTown = history.newTown(shop, random);
+        currentTown.setListener(listener);
+        currentTown.hunterReturns(hunter);
+        currentTown.setPrintMessage("");
+        turns = history.getTurns();
+        gameOver = history.isGameOver();
+        history = history.getPrevious();
+        return true;
+    }
+
+    /**
+     * Takes the last checkpoint back off the history if nothing but the turn count has changed since it was taken,
+     * so undo() goes back to the last move that really did something.
+     *
+     * @return true if the checkpoint was dropped.
+     */
+    public boolean dropCheckpointIfUnchanged() {
+        if (history == null || !history.isSamePlace(capture())) {
+            return false;
+        }
+        history = history.getPrevious();
+        return true;
+    }
+
+    /**
+     * @param choice A menu choice, including "b" and "s" for a trip to the shop.
+     * @return true if the choice can change the game, so it is worth checkpointing before it to undo it.
+     */
+    public static boolean canChangeGame(String choice) {
+        return choice.equals("b") || choice.equals("s") || choice.equals("m") || choice.equals("l")
+                || choice.equals("d") || choice.equals("h");
+    }
+
+    /**
+     * @return true if there is a checkpoint for undo() to go back to.
+     */
+    public boolean canUndo() {
+        return history != null;
+    }
+
+    /**
+     * Starts a new game that carries on from exactly where this one is, with its own hunter, town and random rolls.
+     * Neither game changes the other, so a search can try a move in the fork and throw it away.
+     *
+     * @return the new game; it has no listener or journal.
+     * @throws IllegalStateException if the game is played on a map.
+     */
+    public GameEngine fork() {
+        return capture().resume();
+    }
+
+    /**
+     * Returns the news from the current town and clears it, so the same news is not reported twice.
+     *
+     * @return the latest news.
+     */
+    public String takeLatestNews() {
+        String news = currentTown.getLatestNews();
+        currentTown.setPrintMessage("");
+        return news;
+    }
+
+    /**
+     * Creates a new town and adds the Hunter to it. On a map, the hunter takes a road out of the current town
+     * instead (or starts in town 0), and is welcomed back if they have been there before.
+     * Every town in a game shares the game's one shop, since they all sell the same things at the same prices.
+     */
+    private void enterTown() {
+        if (world == null) {
+            currentTown = new Town(shop, difficulty, random);
+            currentTown.setListener(listener);
+            currentTown.hunterArrives(hunter);
+            return;
+        }
+        if (currentTown == null) {
+            currentTown = world.enter(0, shop, difficulty, random);
+        } else {
+            currentTown = world.travel(shop, difficulty, random);
+        }
+        currentTown.setListener(listener);
+        if (world.markVisited()) {
+            currentTown.hunterArrives(hunter);
+        } else {
+            currentTown.hunterReturns(hunter);
+        }
+    }
+
+    /**
+     * Buys an item at the current town's shop.
+     *
+     * @param item The item to buy.
+     * @return what the shopkeeper says.
+     */
+    public String buy(String item) {
+        if (gameOver) {
+            return "The game is over.";
+        }
+        turns++;
+        return currentTown.getShop().buy(hunter, item);
+    }
+
+    /**
+     * Takes the hunter into the current town's shop, where the shopkeeper asks the player what they want.
+     * The visit counts as one turn, whatever the player does there. Once the game is over the shop is shut.
+     *
+     * @param buyOrSell "b" to buy or "s" to sell.
+     * @param console Where the shopkeeper talks to the player.
+     */
+    public void enterShop(String buyOrSell, GameConsole console) {
+        if (gameOver) {
+            return;
+        }
+        turns++;
+        currentTown.enterShop(buyOrSell, console);
+    }
+
+    /**
+     * Sells an item at the current town's shop.
+     *
+     * @param item The item to sell.
+     * @return what the shopkeeper says.
+     */
+    public String sell(String item) {
+        if (gameOver) {
+            return "The game is over.";
+        }
+        turns++;
+        return currentTown.getShop().sell(hunter, item);
+    }
+
+    /**
+     * Carries out a move picked by a Strategy.
+     *
+     * @param action The move.
+     * @return text to show the player right away.
+     */
+    public String perform(Action action) {
+        if (action.isBuy()) {
+            return buy(action.getItem().getItemName());
+        } else if (action.isSell()) {
+            return sell(action.getItem().getItemName());
+        }
+        return processChoice(action.getChoice());
+    }
+
+    /**
+     * Carries out one of the menu commands. Shopping goes through buy() and sell() instead,
+     * since it needs to know which item is wanted.
+     *
+     * @param choice The action to process.
+     * @return text to show the player right away, or an empty String if everything went into the town's news.
+     */
+    public String processChoice(String choice) {
+        if (gameOver) {
+            return "The game is over.";
+        }
+        turns++;
+        String message = "";
+        if (choice.equals("e")) {
+            message = currentTown.getTerrain().infoString();
+        } else if (choice.equals("m")) {
+            if (currentTown.leaveTown()) {
+                // This town is going away so hand back its news ahead of time.
+                message = currentTown.getLatestNews();
+                enterTown();
+            }
+        } else if (choice.equals("l")) {
+            currentTown.lookForTrouble();
+        } else if (choice.equals("x")) {
+            message = "Fare thee well, " + hunter.getHunterName() + "!";
+            gameOver = true;
+            if (listener != null) {
+                listener.onEvent(new GameEvent(GameEvent.Type.GAME_QUIT, 0, hunter.getGold(), null, null));
+            }
+        } else if (choice.equals("d")) {
+            if (!hunter.hasItemInKit(Item.SHOVEL)) {
+                message = "You can't dig for gold without a shovel";
+            } else if (!currentTown.getSearched()) {
+                currentTown.dig();
+                currentTown.setTownSearched(true);
+            } else {
+                message = "Sorry, you already dug here.";
+            }
+        } else if (choice.equals("h")) {
+            if (!currentTown.isTownHunted()) {
+                currentTown.hunt();
+                currentTown.setTownHunted(true);
+            } else {
+                message = "You have already searched this town!";
+            }
+        } else {
+            message = "Yikes! That's an invalid option! Try again.";
+        }
+        if (currentTown.isGameOver()) {
+            // the game ends here, so there is no next menu to show the news on
+            gameOver = true;
+            message = takeLatestNews();
+        }
+        return message;
+    }
+}
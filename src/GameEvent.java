@@ -0,0 +1,101 @@
+/**
+ * The GameEvent class is one thing that happened in a game, for programs rather than people to read.<p>
+ * Towns and the shop report an event for every brawl, dig, hunt, purchase and broken item, with the gold it
+ * won or cost, so a bot or a log never has to pick numbers out of the game's sentences. <p>
+ * In JSON an event is one small object on one line, with only the fields that event uses, for example
+ * <pre>
+ *   {"event":"brawl_won","delta":7,"gold":27}
+ *   {"event":"item_broken","item":"boat","gold":3}
+ *   {"event":"treasure_found","detail":"Crown","gold":12}
+ * </pre>
+ */
+
+public class GameEvent {
+
+    /**
+     * Every kind of event.
+     */
+    public enum Type {
+        TOWN_ENTERED, NO_TROUBLE, BRAWL_WON, BRAWL_LOST, GAME_LOST, GOLD_DUG, DIRT_DUG, TREASURE_FOUND,
+        TREASURE_REPEATED, DUST_FOUND, GAME_WON, ITEM_BOUGHT, ITEM_SOLD, ITEM_BROKEN, GAME_QUIT;
+
+        private final String jsonName = name().toLowerCase();
+
+        /**
+         * @return the name used in JSON, such as "brawl_won".
+         */
+        public String getJsonName() {
+            return jsonName;
+        }
+    }
+
+    // instance variables
+    private final Type type;
+    private final int goldDelta;
+    private final int gold;
+    private final Item item;
+    private final String detail;
+
+    /**
+     * @param type What happened.
+     * @param goldDelta How much gold it won (or cost, if negative).
+     * @param gold The hunter's gold afterwards.
+     * @param item The item involved, or null.
+     * @param detail The treasure found or the terrain entered, or null.
+     */
+    public GameEvent(Type type, int goldDelta, int gold, Item item, String detail) {
+        this.type = type;
+        this.goldDelta = goldDelta;
+        this.gold = gold;
+        this.item = item;
+        this.detail = detail;
+    }
+
+    // accessors
+    public Type getType() {
+        return type;
+    }
+
+    public int getGoldDelta() {
+        return goldDelta;
+    }
+
+    public int getGold() {
+        return gold;
+    }
+
+    public Item getItem() {
+        return item;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    /**
+     * Writes the event as one compact JSON object, with no line break.
+     *
+     * @param json Where to write it.
+     */
+    public void appendJson(StringBuilder json) {
+        json.append("{\"event\":\"").append(type.getJsonName()).append('"');
+        if (goldDelta != 0) {
+            json.append(",\"delta\":").append(goldDelta);
+        }
+        if (item != null) {
+            json.append(",\"item\":\"").append(item).append('"');
+        }
+        if (detail != null) {
+            json.append(",\"detail\":");
+            JsonRenderer.appendString(json, detail);
+        }
+        json.append(",\"gold\":").append(gold).append('}');
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder json = new StringBuilder();
+        appendJson(json);
+        return json.toString();
+    }
+}
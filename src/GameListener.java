@@ -0,0 +1,12 @@
+/**
+ * The GameListener interface is told about everything that happens in a game as it happens,
+ * as GameEvents rather than the sentences the player reads.
+ */
+
+public interface GameListener {
+
+    /**
+     * @param event What just happened.
+     */
+    void onEvent(GameEvent event);
+}
@@ -0,0 +1,413 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The GameMetrics class counts what happens in every game running in this JVM: brawls, digs, hunts, broken items
+ * and shopping, and how much gold each of them moves.<p>
+ * Every count is a LongAdder, which gives each busy thread its own cell to add to, so recording something is a
+ * few nanoseconds and games on different cores never wait on each other. That is cheap enough that the counts
+ * are always on, in the console game, the server and the bots alike. <p>
+ * The gold amounts go into GoldHistograms with power-of-two buckets, so the spread of rewards and costs can be
+ * seen as well as the totals. <p>
+ * Everything can be read over JMX (jconsole, VisualVM or any JMX client) under the name in OBJECT_NAME, once
+ * register() has been called.
+ */
+
+public class GameMetrics implements GameMetricsMBean {
+    // constants
+    public static final String OBJECT_NAME = "TreasureHunter:type=GameMetrics";
+    public static final GameMetrics INSTANCE = new GameMetrics();
+
+    // static variables
+    private static boolean registered = false;
+
+    // instance variables
+    private final LongAdder troubleSought = new LongAdder();
+    private final LongAdder brawlsFound = new LongAdder();
+    private final LongAdder brawlsWon = new LongAdder();
+    private final LongAdder brawlsLost = new LongAdder();
+    private final LongAdder gamesLostInBrawls = new LongAdder();
+    private final LongAdder digs = new LongAdder();
+    private final LongAdder digsWithGold = new LongAdder();
+    private final LongAdder hunts = new LongAdder();
+    private final LongAdder treasuresFound = new LongAdder();
+    private final LongAdder treasuresRepeated = new LongAdder();
+    private final LongAdder dustFound = new LongAdder();
+    private final LongAdder gamesWon = new LongAdder();
+    private final LongAdder[] itemsBroken = newAdders(Item.count());
+    private final LongAdder[] itemsBought = newAdders(Item.count());
+    private final LongAdder[] itemsSold = newAdders(Item.count());
+    private final GoldHistogram brawlGoldWon = new GoldHistogram();
+    private final GoldHistogram brawlGoldLost = new GoldHistogram();
+    private final GoldHistogram goldDug = new GoldHistogram();
+    private final GoldHistogram goldSpent = new GoldHistogram();
+    private final GoldHistogram goldFromSales = new GoldHistogram();
+
+    private GameMetrics() {
+    }
+
+    /**
+     * Makes the metrics readable over JMX. Calling it again does nothing.
+     */
+    public static synchronized void register() {
+        if (registered) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+            registered = true;
+        } catch (JMException e) {
+            // the game plays just the same without them
+            System.err.println("Couldn't register game metrics: " + e.getMessage());
+        }
+    }
+
+    private static LongAdder[] newAdders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static long[] sums(LongAdder[] adders) {
+        long[] sums = new long[adders.length];
+        for (int i = 0; i < adders.length; i++) {
+            sums[i] = adders[i].sum();
+        }
+        return sums;
+    }
+
+    private static long total(LongAdder[] adders) {
+        long total = 0;
+        for (LongAdder adder : adders) {
+            total += adder.sum();
+        }
+        return total;
+    }
+
+    // recording
+
+    /**
+     * A hunter went looking for trouble and found none.
+     */
+    public void noTrouble() {
+        troubleSought.increment();
+    }
+
+    /**
+     * @param gold What the hunter took off the brawler.
+     */
+    public void brawlWon(int gold) {
+        troubleSought.increment();
+        brawlsFound.increment();
+        brawlsWon.increment();
+        brawlGoldWon.record(gold);
+    }
+
+    /**
+     * @param gold What the hunter actually paid, which is less than was asked if they couldn't afford it.
+     * @param gameLost Whether paying up left the hunter broke and ended the game.
+     */
+    public void brawlLost(int gold, boolean gameLost) {
+        troubleSought.increment();
+        brawlsFound.increment();
+        brawlsLost.increment();
+        brawlGoldLost.record(gold);
+        if (gameLost) {
+            gamesLostInBrawls.increment();
+        }
+    }
+
+    /**
+     * @param gold What was dug up, or 0 for dirt.
+     */
+    public void dug(int gold) {
+        digs.increment();
+        if (gold > 0) {
+            digsWithGold.increment();
+            goldDug.record(gold);
+        }
+    }
+
+    /**
+     * A hunter hunted and found dust.
+     */
+    public void dustFound() {
+        hunts.increment();
+        dustFound.increment();
+    }
+
+    /**
+     * @param gameWon Whether it was the hunter's last treasure.
+     */
+    public void treasureFound(boolean gameWon) {
+        hunts.increment();
+        treasuresFound.increment();
+        if (gameWon) {
+            gamesWon.increment();
+        }
+    }
+
+    /**
+     * A hunter hunted and found a treasure they already had.
+     */
+    public void treasureRepeated() {
+        hunts.increment();
+        treasuresRepeated.increment();
+    }
+
+    public void itemBroken(Item item) {
+        itemsBroken[item.ordinal()].increment();
+    }
+
+    /**
+     * @param item The item bought.
+     * @param gold What it cost, or 0 if the sword got it for free.
+     */
+    public void itemBought(Item item, int gold) {
+        itemsBought[item.ordinal()].increment();
+        goldSpent.record(gold);
+    }
+
+    /**
+     * @param item The item sold.
+     * @param gold What the shop paid for it.
+     */
+    public void itemSold(Item item, int gold) {
+        itemsSold[item.ordinal()].increment();
+        goldFromSales.record(gold);
+    }
+
+    // accessors, for JMX
+
+    @Override
+    public long getTroubleSought() {
+        return troubleSought.sum();
+    }
+
+    @Override
+    public long getBrawlsFound() {
+        return brawlsFound.sum();
+    }
+
+    @Override
+    public long getBrawlsWon() {
+        return brawlsWon.sum();
+    }
+
+    @Override
+    public long getBrawlsLost() {
+        return brawlsLost.sum();
+    }
+
+    @Override
+    public long getGamesLostInBrawls() {
+        return gamesLostInBrawls.sum();
+    }
+
+    @Override
+    public long getBrawlGoldWon() {
+        return brawlGoldWon.getTotal();
+    }
+
+    @Override
+    public long getBrawlGoldLost() {
+        return brawlGoldLost.getTotal();
+    }
+
+    @Override
+    public long getDigs() {
+        return digs.sum();
+    }
+
+    @Override
+    public long getDigsWithGold() {
+        return digsWithGold.sum();
+    }
+
+    @Override
+    public long getGoldDug() {
+        return goldDug.getTotal();
+    }
+
+    @Override
+    public long getHunts() {
+        return hunts.sum();
+    }
+
+    @Override
+    public long getTreasuresFound() {
+        return treasuresFound.sum();
+    }
+
+    @Override
+    public long getTreasuresRepeated() {
+        return treasuresRepeated.sum();
+    }
+
+    @Override
+    public long getDustFound() {
+        return dustFound.sum();
+    }
+
+    @Override
+    public long getGamesWon() {
+        return gamesWon.sum();
+    }
+
+    @Override
+    public long getItemsBroken() {
+        return total(itemsBroken);
+    }
+
+    @Override
+    public long getItemsBought() {
+        return total(itemsBought);
+    }
+
+    @Override
+    public long getItemsSold() {
+        return total(itemsSold);
+    }
+
+    @Override
+    public long getGoldSpent() {
+        return goldSpent.getTotal();
+    }
+
+    @Override
+    public long getGoldFromSales() {
+        return goldFromSales.getTotal();
+    }
+
+    @Override
+    public long[] getItemsBrokenByItem() {
+        return sums(itemsBroken);
+    }
+
+    @Override
+    public long[] getItemsBoughtByItem() {
+        return sums(itemsBought);
+    }
+
+    @Override
+    public long[] getItemsSoldByItem() {
+        return sums(itemsSold);
+    }
+
+    @Override
+    public String[] getItemNames() {
+        String[] names = new String[Item.count()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = Item.byOrdinal(i).toString();
+        }
+        return names;
+    }
+
+    @Override
+    public long[] getBrawlGoldWonHistogram() {
+        return brawlGoldWon.getBuckets();
+    }
+
+    @Override
+    public long[] getBrawlGoldLostHistogram() {
+        return brawlGoldLost.getBuckets();
+    }
+
+    @Override
+    public long[] getGoldDugHistogram() {
+        return goldDug.getBuckets();
+    }
+
+    @Override
+    public long[] getGoldSpentHistogram() {
+        return goldSpent.getBuckets();
+    }
+
+    @Override
+    public long[] getGoldFromSalesHistogram() {
+        return goldFromSales.getBuckets();
+    }
+
+    @Override
+    public String[] getHistogramBuckets() {
+        return GoldHistogram.bucketNames();
+    }
+
+    @Override
+    public void reset() {
+        LongAdder[] counts = {troubleSought, brawlsFound, brawlsWon, brawlsLost, gamesLostInBrawls, digs,
+                digsWithGold, hunts, treasuresFound, treasuresRepeated, dustFound, gamesWon};
+        for (LongAdder count : counts) {
+            count.reset();
+        }
+        for (int i = 0; i < Item.count(); i++) {
+            itemsBroken[i].reset();
+            itemsBought[i].reset();
+            itemsSold[i].reset();
+        }
+        brawlGoldWon.reset();
+        brawlGoldLost.reset();
+        goldDug.reset();
+        goldSpent.reset();
+        goldFromSales.reset();
+    }
+
+    /**
+     * How often each amount of gold changed hands, in buckets that double in size: 0, 1, 2-3, 4-7 and so on, with
+     * everything from 64 up in the last one.
+     */
+    public static class GoldHistogram {
+        // constants
+        private static final int BUCKETS = 8;
+
+        // instance variables
+        private final LongAdder[] buckets = newAdders(BUCKETS);
+        private final LongAdder total = new LongAdder();
+
+        /**
+         * @param gold How much gold changed hands; never negative.
+         */
+        public void record(int gold) {
+            // the bucket is the number of bits the amount needs, so 0 -> 0, 1 -> 1, 2-3 -> 2, 4-7 -> 3...
+            int bucket = Math.min(32 - Integer.numberOfLeadingZeros(gold), BUCKETS - 1);
+            buckets[bucket].increment();
+            total.add(gold);
+        }
+
+        public long[] getBuckets() {
+            return sums(buckets);
+        }
+
+        public long getTotal() {
+            return total.sum();
+        }
+
+        public void reset() {
+            for (LongAdder bucket : buckets) {
+                bucket.reset();
+            }
+            total.reset();
+        }
+
+        /**
+         * @return a label for each bucket, such as "4-7".
+         */
+        public static String[] bucketNames() {
+            String[] names = new String[BUCKETS];
+            names[0] = "0";
+            for (int b = 1; b < BUCKETS - 1; b++) {
+                int low = 1 << (b - 1);
+                int high = (1 << b) - 1;
+                names[b] = low == high ? String.valueOf(low) : low + "-" + high;
+            }
+            names[BUCKETS - 1] = (1 << (BUCKETS - 2)) + "+";
+            return names;
+        }
+    }
+}
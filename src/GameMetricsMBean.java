@@ -0,0 +1,72 @@
+/**
+ * The GameMetricsMBean interface is what JMX shows of GameMetrics: every count as a read-only attribute, plus a
+ * reset operation.<p>
+ * The per-item counts line up with getItemNames(), and the histograms line up with getHistogramBuckets().
+ */
+
+public interface GameMetricsMBean {
+    long getTroubleSought();
+
+    long getBrawlsFound();
+
+    long getBrawlsWon();
+
+    long getBrawlsLost();
+
+    long getGamesLostInBrawls();
+
+    long getBrawlGoldWon();
+
+    long getBrawlGoldLost();
+
+    long getDigs();
+
+    long getDigsWithGold();
+
+    long getGoldDug();
+
+    long getHunts();
+
+    long getTreasuresFound();
+
+    long getTreasuresRepeated();
+
+    long getDustFound();
+
+    long getGamesWon();
+
+    long getItemsBroken();
+
+    long getItemsBought();
+
+    long getItemsSold();
+
+    long getGoldSpent();
+
+    long getGoldFromSales();
+
+    long[] getItemsBrokenByItem();
+
+    long[] getItemsBoughtByItem();
+
+    long[] getItemsSoldByItem();
+
+    String[] getItemNames();
+
+    long[] getBrawlGoldWonHistogram();
+
+    long[] getBrawlGoldLostHistogram();
+
+    long[] getGoldDugHistogram();
+
+    long[] getGoldSpentHistogram();
+
+    long[] getGoldFromSalesHistogram();
+
+    String[] getHistogramBuckets();
+
+    /**
+     * Sets every count back to zero.
+     */
+    void reset();
+}
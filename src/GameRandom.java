@@ -0,0 +1,113 @@
+/**
+ * The GameRandom class is the source of every random roll in one game of Treasure Hunter.<p>
+ * It uses the same SplitMix64 algorithm as java.util.SplittableRandom. Each game owns its own GameRandom,
+ * so games running on different threads never fight over a shared generator like Math.random() does,
+ * and a game started from the same seed with the same commands plays out exactly the same way. <p>
+ * Unlike SplittableRandom, the current state can be read back, so a game can be saved and picked up later. <p>
+ * The static advance(), doubleAt() and intAt() methods make the same rolls from a bare state, for code that keeps
+ * millions of generators in a long[] instead of one object each.
+ */
+
+public class GameRandom {
+    // constants
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    // instance variables
+    private long state;
+
+    /**
+     * @param seed The seed (or saved state) to start from.
+     */
+    public GameRandom(long seed) {
+        state = seed;
+    }
+
+    /**
+     * @return the current state; a GameRandom made from this value continues where this one is now.
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * Moves the rolls back (or forward) to a state read with getState(), for going back to a checkpoint.
+     *
+     * @param state The state to carry on from.
+     */
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    /**
+     * @return the next pseudorandom long.
+     */
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix64(state);
+    }
+
+    /**
+     * @return a pseudorandom double between 0 (inclusive) and 1 (exclusive), like Math.random().
+     */
+    public double nextDouble() {
+        state += GOLDEN_GAMMA;
+        return doubleAt(state);
+    }
+
+    /**
+     * @param bound The upper bound (exclusive); must be positive.
+     * @return a pseudorandom int between 0 (inclusive) and bound (exclusive).
+     */
+    public int nextInt(int bound) {
+        state += GOLDEN_GAMMA;
+        return intAt(state, bound);
+    }
+
+    /**
+     * Creates a new, independent GameRandom and advances this one.
+     * Used to hand out one seed per game from a single master seed.
+     *
+     * @return the new GameRandom.
+     */
+    public GameRandom split() {
+        return new GameRandom(nextLong());
+    }
+
+    /**
+     * @param state A generator's state.
+     * @return the state after one more roll.
+     */
+    public static long advance(long state) {
+        return state + GOLDEN_GAMMA;
+    }
+
+    /**
+     * @param state A generator's state, just advanced.
+     * @return the double nextDouble() returns on reaching that state.
+     */
+    public static double doubleAt(long state) {
+        return (mix64(state) >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * @param state A generator's state, just advanced.
+     * @param bound The upper bound (exclusive); must be positive.
+     * @return the int nextInt(bound) returns on reaching that state.
+     */
+    public static int intAt(long state, int bound) {
+        return (int) (((mix64(state) >>> 33) * bound) >>> 31);
+    }
+
+    /**
+     * Scrambles the bits of a long; also handy for turning a seed and an index into a new seed.
+     *
+     * @param z The value to scramble.
+     * @return the scrambled value.
+     */
+    public static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
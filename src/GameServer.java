@@ -0,0 +1,235 @@
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The GameServer class lets many players play Treasure Hunter at once over plain TCP (telnet or nc will do).<p>
+ * Every connection gets its own game, with its own console on the connection's streams, running on its own
+ * virtual thread, so a waiting player costs very little. Players who stay quiet for too long are disconnected,
+ * and once the connection limit is reached new players are turned away. <p>
+ * Every session starts in the server's output style (ansi unless another is given), and each player can switch
+ * with "/style plain", "/style ansi" or "/style json" at any prompt, so bots can get JSON events while people
+ * get colors. <p>
+ * Given a number of towns, every session plays on its own WorldMap of that many towns; the map only keeps a few
+ * towns in memory at a time, so a long session costs no more than a short one. <p>
+ * What happens across every session is counted by GameMetrics and can be watched over JMX while the server runs.
+ * Every finished game goes on the server's Leaderboard, and the player is told if it made the top games. <p>
+ * Usage: java GameServer [port] [max players] [idle seconds] [style] [world towns]
+ */
+
+public class GameServer {
+    // constants
+    private static final String SERVER_FULL = "Sorry, the server is full. Try again later.\n";
+    private static final Path LEADERBOARD_FOLDER = Path.of("leaderboard");
+    private static final int OUT_BUFFER_SIZE = 1 << 14;
+
+    // instance variables
+    private int port;
+    private int idleSeconds;
+    private String style;
+    private int worldTowns;
+    private Semaphore slots;
+    private ConcurrentHashMap<Session, Boolean> sessions;
+    private Leaderboard leaderboard;
+
+    /**
+     * @param port The port to listen on.
+     * @param maxPlayers How many players can be connected at once.
+     * @param idleSeconds How long a player may go without typing anything before being disconnected.
+     * @param style The output style every session starts in: "ansi", "plain" or "json".
+     * @param worldTowns How many towns are on each session's map, or 0 for a new town after every move.
+     */
+    public GameServer(int port, int maxPlayers, int idleSeconds, String style, int worldTowns) {
+        this.port = port;
+        this.idleSeconds = idleSeconds;
+        this.style = style;
+        this.worldTowns = worldTowns;
+        slots = new Semaphore(maxPlayers);
+        sessions = new ConcurrentHashMap<>();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 4000;
+        int maxPlayers = 50_000;
+        int idleSeconds = 300;
+        if (args.length > 0) {
+            port = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            maxPlayers = Integer.parseInt(args[1]);
+        }
+        if (args.length > 2) {
+            idleSeconds = Integer.parseInt(args[2]);
+        }
+        String style = "ansi";
+        if (args.length > 3) {
+            style = args[3];
+        }
+        if (OutputRenderer.forStyle(style, System.out) == null) {
+            System.out.println("Unknown style: " + style);
+            return;
+        }
+        int worldTowns = 0;
+        if (args.length > 4) {
+            worldTowns = Integer.parseInt(args[4]);
+        }
+        GameMetrics.register();
+        new GameServer(port, maxPlayers, idleSeconds, style, worldTowns).run();
+    }
+
+    /**
+     * Accepts players until the server is stopped.
+     *
+     * @throws IOException if the port can't be opened.
+     */
+    public void run() throws IOException {
+        ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor();
+        reaper.scheduleWithFixedDelay(this::evictIdleSessions, 1, 1, TimeUnit.SECONDS);
+        leaderboard = new Leaderboard(LEADERBOARD_FOLDER);
+        try (ServerSocketChannel server = ServerSocketChannel.open();
+             ExecutorService games = Executors.newVirtualThreadPerTaskExecutor()) {
+            server.bind(new InetSocketAddress(port), 1024);
+            System.out.println("Treasure Hunter server listening on port " + port);
+            while (true) {
+                SocketChannel channel = server.accept();
+                if (!slots.tryAcquire()) {
+                    turnAway(channel);
+                } else {
+                    games.submit(() -> playSession(channel));
+                }
+            }
+        } finally {
+            reaper.shutdownNow();
+            leaderboard.close();
+        }
+    }
+
+    /**
+     * @return how many players are connected right now.
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Plays one game over a connection, then hangs up.
+     *
+     * @param channel The player's connection.
+     */
+    private void playSession(SocketChannel channel) {
+        Session session = new Session(channel);
+        sessions.put(session, Boolean.TRUE);
+        GameConsole console = null;
+        try {
+            // the game hands its output to the session's own writer thread, so a slow connection only holds up itself
+            PrintStream out = new PrintStream(new AsyncOutputStream(Channels.newOutputStream(channel), OUT_BUFFER_SIZE),
+                    false, StandardCharsets.UTF_8);
+            console = new GameConsole(new ActivityInputStream(Channels.newInputStream(channel), session), out);
+            console.setStyle(style);
+            TreasureHunter game = new TreasureHunter(console, GameRandom.mix64(System.nanoTime() ^ channel.hashCode()));
+            // every session shares the server's folder, so one player's save would overwrite another's
+            game.setSaveFile(null);
+            // nor are sessions journaled: a file per connection would pile up without end on a busy server
+            game.setJournalFolder(null);
+            game.setWorldTowns(worldTowns);
+            game.setLeaderboard(leaderboard);
+            game.play();
+        } catch (NoSuchElementException | IllegalStateException e) {
+            // the player hung up or was disconnected for being idle
+        } finally {
+            if (console != null) {
+                // sends the end of the game before hanging up; gives up at once if the player has already gone
+                console.close();
+            }
+            sessions.remove(session);
+            slots.release();
+            session.close();
+        }
+    }
+
+    /**
+     * Tells a player the server is full and hangs up.
+     *
+     * @param channel The player's connection.
+     */
+    private void turnAway(SocketChannel channel) {
+        try (channel) {
+            channel.write(StandardCharsets.UTF_8.encode(SERVER_FULL));
+        } catch (IOException e) {
+            // they're being turned away anyway
+        }
+    }
+
+    /**
+     * Disconnects every player who has been quiet for longer than the idle limit.
+     */
+    private void evictIdleSessions() {
+        long cutoff = System.nanoTime() - TimeUnit.SECONDS.toNanos(idleSeconds);
+        for (Session session : sessions.keySet()) {
+            if (session.lastActive - cutoff < 0) {
+                session.close();
+            }
+        }
+    }
+
+    /**
+     * One connected player.
+     */
+    private static class Session {
+        private final SocketChannel channel;
+        private volatile long lastActive;
+
+        private Session(SocketChannel channel) {
+            this.channel = channel;
+            lastActive = System.nanoTime();
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // already gone
+            }
+        }
+    }
+
+    /**
+     * Marks a session as active whenever the player sends something.
+     */
+    private static class ActivityInputStream extends FilterInputStream {
+        private final Session session;
+
+        private ActivityInputStream(InputStream in, Session session) {
+            super(in);
+            this.session = session;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            session.lastActive = System.nanoTime();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            session.lastActive = System.nanoTime();
+            return n;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/**
+ * The GameState class is a frozen copy of a game at one moment: a checkpoint that can be gone back to, or started
+ * from any number of times.<p>
+ * A GameEngine's Hunter and Town are changed in place as the game goes on, so copying them means building new
+ * objects. A GameState instead holds only values that never change, split into a hunter part and a town part.
+ * A checkpoint reuses whichever part is the same as in the checkpoint before it (most moves only change one of
+ * them), so taking one is a single small object and never a copy of the whole game. <p>
+ * Every checkpoint points back at the one before it, so the chain of them is a history that is never changed
+ * either, only added to: undoing a move is just going back one link, and any number of games forked from the same
+ * checkpoint share everything that came before it. <p>
+ * The random rolls are part of the state, so a game forked from a checkpoint, or undone back to it, rolls exactly
+ * the same dice again: the same moves always play out the same way. <p>
+ * Games on a WorldMap can't be checkpointed yet, since the map keeps the towns that have been visited. <p>
+ * GameBenchmark.gameStateFork times forking.
+ */
+
+public class GameState {
+    // constants
+    private static final String[] TREASURES = {null, "Crown", "Trophy", "Gem"};
+
+    // instance variables
+    private final DifficultyProfile difficulty;
+    private final long seed;
+    private final long randomState;
+    private final int turns;
+    private final boolean gameOver;
+    private final HunterState hunter;
+    private final TownState town;
+    private final GameState previous;
+    private final int depth;
+
+    private GameState(DifficultyProfile difficulty, long seed, long randomState, int turns, boolean gameOver,
+                      HunterState hunter, TownState town, GameState previous) {
+        this.difficulty = difficulty;
+        this.seed = seed;
+        this.randomState = randomState;
+        this.turns = turns;
+        this.gameOver = gameOver;
+        this.hunter = hunter;
+        this.town = town;
+        this.previous = previous;
+        if (previous == null) {
+            depth = 1;
+        } else {
+            depth = previous.depth + 1;
+        }
+    }
+
+    /**
+     * Takes a checkpoint of a game.
+     *
+     * @param game The game.
+     * @param previous The checkpoint before this one, or null; its parts are reused if they haven't changed.
+     * @return the checkpoint.
+     * @throws IllegalStateException if the game is played on a map.
+     */
+    public static GameState of(GameEngine game, GameState previous) {
+        if (game.getWorld() != null) {
+            throw new IllegalStateException("games on a map can't be checkpointed yet");
+        }
+        Hunter h = game.getHunter();
+        HunterState hunter = new HunterState(h.getHunterName(), h.getGold(), h.getKit(), packTreasures(h.getTreasures()));
+        Town t = game.getCurrentTown();
+        TownState town = new TownState(t.getTerrain(), t.isToughTown(), t.getTreasure(), t.isTownHunted(), t.getSearched());
+        if (previous != null) {
+            if (hunter.sameAs(previous.hunter)) {
+                hunter = previous.hunter;
+            }
+            if (town.sameAs(previous.town)) {
+                town = previous.town;
+            }
+        }
+        return new GameState(game.getDifficulty(), game.getSeed(), game.getRandomState(), game.getTurns(),
+                game.isGameOver(), hunter, town, previous);
+    }
+
+    // accessors
+    public DifficultyProfile getDifficulty() {
+        return difficulty;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getTurns() {
+        return turns;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public int getGold() {
+        return hunter.gold;
+    }
+
+    /**
+     * @return the kit, one bit per Item.
+     */
+    public int getKit() {
+        return hunter.kit;
+    }
+
+    /**
+     * @return the checkpoint before this one, or null if this is the first.
+     */
+    public GameState getPrevious() {
+        return previous;
+    }
+
+    /**
+     * @return how many checkpoints there are in this one's history, counting itself.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @param other Another checkpoint.
+     * @return true if the two are the same game at the same point, whatever their turn counts and histories.
+     */
+    public boolean isSamePlace(GameState other) {
+        return randomState == other.randomState && gameOver == other.gameOver && seed == other.seed
+                && difficulty == other.difficulty && hunter.sameAs(other.hunter) && town.sameAs(other.town);
+    }
+
+    /**
+     * Starts a new game from this checkpoint. The new game has its own hunter, town and random rolls, so it can be
+     * played without changing this checkpoint or any other game started from it, and it can be undone back through
+     * this checkpoint's history.
+     *
+     * @return the new game.
+     */
+    public GameEngine resume() {
+        return GameEngine.fromState(this);
+    }
+
+    /**
+     * Forgets the oldest checkpoints in this one's history.
+     *
+     * @param keep How many checkpoints to keep.
+     * @return this checkpoint again, with a history of only its newest checkpoints.
+     */
+    public GameState keepNewest(int keep) {
+        if (depth <= keep) {
+            return this;
+        }
+        GameState[] newest = new GameState[keep];
+        GameState state = this;
+        for (int i = keep - 1; i >= 0; i--) {
+            newest[i] = state;
+            state = state.previous;
+        }
+        // the parts are shared; only the links are made again
+        GameState copy = null;
+        for (GameState s : newest) {
+            copy = new GameState(s.difficulty, s.seed, s.randomState, s.turns, s.gameOver, s.hunter, s.town, copy);
+        }
+        return copy;
+    }
+
+    long getRandomState() {
+        return randomState;
+    }
+
+    /**
+     * @return a new Hunter exactly like the one at this checkpoint.
+     */
+    Hunter newHunter() {
+        String[] treasures = new String[3];
+        for (int i = 0; i < treasures.length; i++) {
+            treasures[i] = TREASURES[(hunter.treasures >>> (2 * i)) & 3];
+        }
+        return new Hunter(hunter.name, difficulty, hunter.gold, hunter.kit, treasures);
+    }
+
+    /**
+     * @return a new Town exactly like the one at this checkpoint.
+     */
+    Town newTown(Shop shop, GameRandom random) {
+        return new Town(shop, difficulty, random, town.terrain, town.toughTown, town.treasure, town.hunted,
+                town.searched);
+    }
+
+    /**
+     * @return the treasures found, two bits each in the order they were found.
+     */
+    private static int packTreasures(String[] treasures) {
+        int packed = 0;
+        for (int i = 0; i < treasures.length; i++) {
+            for (int code = 1; code < TREASURES.length; code++) {
+                if (TREASURES[code].equals(treasures[i])) {
+                    packed |= code << (2 * i);
+                }
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * The hunter's part of a checkpoint.
+     */
+    private static final class HunterState {
+        private final String name;
+        private final int gold;
+        private final int kit;
+        private final int treasures;
+
+        private HunterState(String name, int gold, int kit, int treasures) {
+            this.name = name;
+            this.gold = gold;
+            this.kit = kit;
+            this.treasures = treasures;
+        }
+
+        /**
+         * @return true if the other part holds the same values; null never does.
+         */
+        private boolean sameAs(HunterState other) {
+            return other != null && gold == other.gold && kit == other.kit && treasures == other.treasures
+                    && name.equals(other.name);
+        }
+    }
+
+    /**
+     * The current town's part of a checkpoint.
+     */
+    private static final class TownState {
+        private final Terrain terrain;
+        private final boolean toughTown;
+        private final String treasure;
+        private final boolean hunted;
+        private final boolean searched;
+
+        private TownState(Terrain terrain, boolean toughTown, String treasure, boolean hunted, boolean searched) {
+            this.terrain = terrain;
+            this.toughTown = toughTown;
+            this.treasure = treasure;
+            this.hunted = hunted;
+            this.searched = searched;
+        }
+
+        /**
+         * @return true if the other part holds the same values; null never does.
+         */
+        private boolean sameAs(TownState other) {
+            return other != null && terrain == other.terrain && toughTown == other.toughTown
+                    && hunted == other.hunted && searched == other.searched && treasure.equals(other.treasure);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * The GameView class shows a Strategy everything a player could see on screen, and nothing else.<p>
+ * It reads straight from the game each time it is asked, so one view lasts the whole game, but it has no way
+ * to change anything: the town's hidden treasure stays hidden and the hunter can't be handed out.
+ */
+
+public class GameView {
+    // instance variables
+    private final GameEngine game;
+
+    /**
+     * @param game The game to show.
+     */
+    public GameView(GameEngine game) {
+        this.game = game;
+    }
+
+    public DifficultyProfile getDifficulty() {
+        return game.getDifficulty();
+    }
+
+    /**
+     * @return how many moves have been made so far.
+     */
+    public int getTurns() {
+        return game.getTurns();
+    }
+
+    public int getGold() {
+        return game.getHunter().getGold();
+    }
+
+    /**
+     * @return the hunter's kit, one bit per Item.
+     */
+    public int getKit() {
+        return game.getHunter().getKit();
+    }
+
+    public boolean hasItem(Item item) {
+        return game.getHunter().hasItemInKit(item);
+    }
+
+    /**
+     * @return how many of the three treasures the hunter has found.
+     */
+    public int getTreasureCount() {
+        int empty = game.getHunter().emptyPositionInTreasures();
+        if (empty == -1) {
+            return game.getHunter().getTreasures().length;
+        }
+        return empty;
+    }
+
+    public boolean hasTreasure(String treasure) {
+        return game.getHunter().hasItemInTreasures(treasure);
+    }
+
+    public Terrain getTerrain() {
+        return game.getCurrentTown().getTerrain();
+    }
+
+    public boolean isToughTown() {
+        return game.getCurrentTown().isToughTown();
+    }
+
+    public boolean isTownHunted() {
+        return game.getCurrentTown().isTownHunted();
+    }
+
+    public boolean isTownSearched() {
+        return game.getCurrentTown().getSearched();
+    }
+
+    /**
+     * @return what the item costs at the shop, before any sword discount.
+     */
+    public int getBuyPrice(Item item) {
+        return game.getDifficulty().getPrices().getBuyPrice(item);
+    }
+
+    /**
+     * @return what the shop pays for the item.
+     */
+    public int getSellPrice(Item item) {
+        return game.getDifficulty().getPrices().getSellPrice(item);
+    }
+}
@@ -0,0 +1,25 @@
+/**
+ * The HuntAndMoveStrategy class is the simplest bot that can win: it never digs, it just hunts in every town,
+ * buys whatever it needs to get to the next one, and picks fights when it can't afford it.
+ */
+
+public class HuntAndMoveStrategy implements Strategy {
+
+    @Override
+    public String getName() {
+        return "hunt and move";
+    }
+
+    @Override
+    public Action nextAction(GameView view) {
+        Item neededItem = view.getTerrain().getNeededItem();
+        if (!view.isTownHunted()) {
+            return Action.HUNT;
+        } else if (view.hasItem(neededItem)) {
+            return Action.MOVE;
+        } else if (view.getGold() >= view.getBuyPrice(neededItem)) {
+            return Action.buy(neededItem);
+        }
+        return Action.LOOK_FOR_TROUBLE;
+    }
+}
@@ -7,35 +7,57 @@
 public class Hunter {
     //instance variables
     private String hunterName;
-    private String[] kit;
+    private int kit; // one bit per Item
+    private int kitSize;
     private String[] treasures;
     private int gold;
+    // what getInventory, getTreasuresInventory and infoString last returned, or null once something has changed
+    private String inventoryText;
+    private String treasuresText;
+    private String infoText;
+    private StringBuilder text = new StringBuilder();
 
     /**
      * The base constructor of a Hunter assigns the name to the hunter and an empty kit.
+     * The starting gold and the size of the kit come from the game's difficulty.
      *
      * @param hunterName The hunter's name.
-     * @param startingGold The gold the hunter starts with.
+     * @param difficulty The difficulty of the game.
      */
-    public Hunter(String hunterName, int startingGold, boolean testMode) {
+    public Hunter(String hunterName, DifficultyProfile difficulty) {
         this.hunterName = hunterName;
-        if (!testMode) {
-            if (TreasureHunter.returnDifficulty().equals("samurai")) {
-                kit = new String[8];
-            }
-            else {
-                kit = new String[7];
-            }; // only 7 possible items can be stored in kit
+        kitSize = difficulty.getKitSize();
+        if (!difficulty.isFullKit()) {
+            kit = 0;
         } else {
-            kit = new String[]{"water", "rope", "machete", "horse", "boat", "boots", "shovel"};
+            kit = Item.WATER.getBit() | Item.ROPE.getBit() | Item.MACHETE.getBit() | Item.HORSE.getBit()
+                    | Item.BOAT.getBit() | Item.BOOTS.getBit() | Item.SHOVEL.getBit();
         }
         treasures = new String[3];
-        gold = startingGold;
+        gold = difficulty.getStartingGold();
+    }
+
+    /**
+     * Rebuilds a hunter exactly as they were when a game was saved.
+     *
+     * @param hunterName The hunter's name.
+     * @param difficulty The difficulty of the game.
+     * @param gold The hunter's gold.
+     * @param kit The hunter's kit, one bit per Item.
+     * @param treasures The treasures found so far, in the order they were found.
+     */
+    public Hunter(String hunterName, DifficultyProfile difficulty, int gold, int kit, String[] treasures) {
+        this.hunterName = hunterName;
+        kitSize = difficulty.getKitSize();
+        this.kit = kit;
+        this.treasures = treasures;
+        this.gold = gold;
     }
 
     public Hunter(String hunterName, int startingGold) {
         this.hunterName = hunterName;
-        kit = new String[7]; // only 5 possible items can be stored in kit
+        kitSize = 7; // only 7 possible items can be stored in kit
+        kit = 0;
         treasures = new String[3];
         gold = startingGold;
     }
@@ -53,6 +75,13 @@ public class Hunter {
         return gold;
     }
 
+    /**
+     * @return the kit, one bit per Item.
+     */
+    public int getKit() {
+        return kit;
+    }
+
     /**
      * Updates the amount of gold the hunter has.
      *
@@ -63,10 +92,12 @@ public class Hunter {
         if (gold < 0) {
             gold = 0;
         }
+        infoText = null;
     }
 
     public void setGold(int gold) {
         this.gold = gold;
+        infoText = null;
     }
 
     /**
@@ -78,21 +109,30 @@ public class Hunter {
      */
 
     public boolean buyItem(String item, int costOfItem) {
-        if (costOfItem == 0&&!item.equals("sword") || gold < costOfItem&&!hasItemInKit("sword") || hasItemInKit(item)) {
+        Item kitItem = Item.fromName(item);
+        if (kitItem == null) {
+            return false;
+        }
+        return buyItem(kitItem, costOfItem);
+    }
+
+    /**
+     * Buys an item from a shop.
+     *
+     * @param item The item the hunter is buying.
+     * @param costOfItem The cost of the item.
+     * @return true if the item is successfully bought.
+     */
+    public boolean buyItem(Item item, int costOfItem) {
+        boolean hasSword = hasItemInKit(Item.SWORD);
+        if (costOfItem == 0 && item != Item.SWORD || gold < costOfItem && !hasSword || hasItemInKit(item)
+                || emptyPositionInKit() == -1) {
             return false;
         }
-        if (!hasItemInKit("sword")) {
+        // a hunter with a sword gets everything for free
+        if (!hasSword) {
             gold -= costOfItem;
-        } else {
-            int message = (int) (Math.random() * 3) + 1;
-            if (message == 1) {
-                System.out.println("The shopkeeper saw your sword and got scared... you got the " + Colors.PURPLE + item + Colors.RESET + " for free.");
-            }
-            else if (message == 2) {
-                System.out.println("You gained the shopkeeper's respect after he saw that sharp thing... you got the " + Colors.PURPLE + item + Colors.RESET + " for free.");
-            } else {
-                System.out.println("The shopkeeper was happy after seeing your hand... you got the " + Colors.PURPLE + item + Colors.RESET + " for free.");
-            }
+            infoText = null;
         }
         addItem(item);
         return true;
@@ -107,39 +147,39 @@ public class Hunter {
      * @return true if the item was successfully sold.
      */
     public boolean sellItem(String item, int buyBackPrice) {
-        if (buyBackPrice <= 0&&!item.equals("sword")|| !hasItemInKit(item)) {
+        Item kitItem = Item.fromName(item);
+        if (buyBackPrice <= 0 && kitItem != Item.SWORD || kitItem == null || !hasItemInKit(kitItem)) {
             return false;
         }
         gold += buyBackPrice;
-        removeItemFromKit(item);
+        infoText = null;
+        removeItemFromKit(kitItem);
         return true;
     }
 
     /**
-     * Removes an item from the kit by setting the index of the item to null.
+     * Removes an item from the kit by clearing its bit.
      *
      * @param item The item to be removed.
      */
-    public void removeItemFromKit(String item) {
-        int itmIdx = findItemInKit(item);
-
-        // if item is found
-        if (itmIdx >= 0) {
-            kit[itmIdx] = null;
-        }
+    public void removeItemFromKit(Item item) {
+        kit &= ~item.getBit();
+        inventoryText = null;
+        infoText = null;
     }
 
     /**
-     * Checks to make sure that the item is not already in the kit.
-     * If not, it assigns the item to an index in the kit with a null value ("empty" position).
+     * Checks to make sure that the item is not already in the kit and that there is room for it.
+     * If so, it sets the item's bit in the kit.
      *
      * @param item The item to be added to the kit.
      * @return true if the item is not in the kit and has been added.
      */
-    private boolean addItem(String item) {
-        if (!hasItemInKit(item)) {
-            int idx = emptyPositionInKit();
-            kit[idx] = item;
+    private boolean addItem(Item item) {
+        if (!hasItemInKit(item) && emptyPositionInKit() != -1) {
+            kit |= item.getBit();
+            inventoryText = null;
+            infoText = null;
             return true;
         }
         return false;
@@ -147,22 +187,29 @@ public class Hunter {
 
     public void addTreasure(int idx, String item) {
         treasures[idx] = item;
+        treasuresText = null;
+        infoText = null;
     }
 
     /**
-     * Checks if the kit Array has the specified item.
+     * Checks if the kit has the item with the specified name.
      *
      * @param item The search item
      * @return true if the item is found.
      */
     public boolean hasItemInKit(String item) {
-        for (String tmpItem : kit) {
-            if (item.equals(tmpItem)) {
-                // early return
-                return true;
-            }
-        }
-        return false;
+        Item kitItem = Item.fromName(item);
+        return kitItem != null && hasItemInKit(kitItem);
+    }
+
+    /**
+     * Checks if the kit has the specified item.
+     *
+     * @param item The search item
+     * @return true if the item is found.
+     */
+    public boolean hasItemInKit(Item item) {
+        return (kit & item.getBit()) != 0;
     }
 
     public boolean hasItemInTreasures(String item) {
@@ -175,87 +222,82 @@ public class Hunter {
         return false;
     }
 
-     /**
+    /**
      * Returns a printable representation of the inventory, which
-     * is a list of the items in kit, with a space between each item.
+     * is a list of the items in kit, with a space between each item.<p>
+     * It is only worked out again after the kit changes.
      *
      * @return The printable String representation of the inventory.
      */
     public String getInventory() {
-        String printableKit = "";
-        String space = " ";
-
-        for (String item : kit) {
-            if (item != null) {
-                printableKit += Colors.PURPLE + item + Colors.RESET + space;
+        if (inventoryText == null) {
+            text.setLength(0);
+            // walk the set bits from lowest to highest
+            for (int bits = kit; bits != 0; bits &= bits - 1) {
+                Item item = Item.byOrdinal(Integer.numberOfTrailingZeros(bits));
+                text.append(Colors.PURPLE).append(item).append(Colors.RESET).append(' ');
             }
+            inventoryText = text.toString();
         }
-        return printableKit;
+        return inventoryText;
     }
 
+    /**
+     * It is only worked out again after a treasure is found.
+     *
+     * @return the treasures found so far, as a list for printing, or an empty String if there are none.
+     */
     public String getTreasuresInventory() {
-        String printableKit = "";
-        String space = " ";
-
-        for (int i = 0; i<treasures.length-1; i++) {
-            if (treasures[i] != null) {
-                printableKit += Colors.GREEN + "a " +  treasures[i] + Colors.RESET + "," + space;
+        if (treasuresText == null) {
+            text.setLength(0);
+            for (int i = 0; i < treasures.length - 1; i++) {
+                if (treasures[i] != null) {
+                    text.append(Colors.GREEN).append("a ").append(treasures[i]).append(Colors.RESET).append(", ");
+                }
             }
+            if (treasures[treasures.length - 1] != null) {
+                text.append(Colors.GREEN).append("and a ").append(treasures[treasures.length - 1]).append(Colors.RESET);
+            } else if (text.length() > 0) {
+                text.setLength(text.length() - 2);
+            }
+            treasuresText = text.toString();
         }
-        if (treasures[treasures.length-1]!=null) {
-            printableKit += Colors.GREEN + "and a " + treasures[treasures.length - 1] + Colors.RESET;
-        } else {
-            printableKit = printableKit.substring(0, printableKit.length()-2);
-        }
-        return printableKit;
+        return treasuresText;
     }
 
     /**
+     * The menu shows this every turn, so it is kept until the gold, kit or treasures change.
+     *
      * @return A string representation of the hunter.
      */
     public String infoString() {
-        String str = hunterName + " has " + gold + Colors.YELLOW + " gold" + Colors.RESET;
-        if (!kitIsEmpty()) {
-            str += " and " + getInventory();
-        }
-        str += "\nTreasures found: ";
-        if (treasuresIsEmpty()) {
-            str += "none";
-        } else {
-            str += getTreasuresInventory();
-        }
-        return str;
-    }
-
-    /**
-     * Searches kit Array for the index of the specified value.
-     *
-     * @param item String to look for.
-     * @return The index of the item, or -1 if not found.
-     */
-    private int findItemInKit(String item) {
-        for (int i = 0; i < kit.length; i++) {
-            String tmpItem = kit[i];
-
-            if (item.equals(tmpItem)) {
-                return i;
+        if (infoText == null) {
+            // these share the builder, so they have to be worked out before it is started
+            String inventory = getInventory();
+            String treasuresFound = getTreasuresInventory();
+            text.setLength(0);
+            text.append(hunterName).append(" has ").append(gold).append(Colors.YELLOW).append(" gold").append(Colors.RESET);
+            if (!kitIsEmpty()) {
+                text.append(" and ").append(inventory);
+            }
+            text.append("\nTreasures found: ");
+            if (treasuresIsEmpty()) {
+                text.append("none");
+            } else {
+                text.append(treasuresFound);
             }
+            infoText = text.toString();
         }
-        return -1;
+        return infoText;
     }
 
     /**
-     * Check if the kit is empty - meaning all elements are null.
+     * Check if the kit is empty - meaning no item bits are set.
      *
      * @return true if kit is completely empty.
      */
     private boolean kitIsEmpty() {
-        for (String string : kit) {
-            if (string != null) {
-                return false;
-            }
-        }
-        return true;
+        return kit == 0;
     }
 
     private boolean treasuresIsEmpty() {
@@ -268,15 +310,15 @@ public class Hunter {
     }
 
     /**
-     * Finds the first index where there is a null value.
+     * Finds the next free slot in the kit.
+     * Items are kept as bits, so the next free slot is just the number of items already carried.
      *
-     * @return index of empty index, or -1 if not found.
+     * @return index of the next empty slot, or -1 if the kit is full.
      */
     private int emptyPositionInKit() {
-        for (int i = 0; i < kit.length; i++) {
-            if (kit[i] == null) {
-                return i;
-            }
+        int used = Integer.bitCount(kit);
+        if (used < kitSize) {
+            return used;
         }
         return -1;
     }
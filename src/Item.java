@@ -0,0 +1,88 @@
+/**
+ * The Item enum lists everything a hunter can carry in their kit.<p>
+ * Each item owns one bit, so a whole kit fits in a single int and checking for an item is one AND.
+ */
+
+public enum Item {
+    WATER("water"),
+    ROPE("rope"),
+    MACHETE("machete"),
+    HORSE("horse"),
+    BOAT("boat"),
+    BOOTS("boots"),
+    SHOVEL("shovel"),
+    SWORD("sword");
+
+    // static variables
+    private static final Item[] ITEMS = values();
+
+    // instance variables
+    private final String itemName;
+    private final int bit;
+
+    Item(String itemName) {
+        this.itemName = itemName;
+        bit = 1 << ordinal();
+    }
+
+    // accessors
+    public String getItemName() {
+        return itemName;
+    }
+
+    public int getBit() {
+        return bit;
+    }
+
+    /**
+     * Looks up an item by the name the player types in.
+     *
+     * @param name The lowercase item name.
+     * @return the item, or null if there is no item with that name.
+     */
+    public static Item fromName(String name) {
+        switch (name) {
+            case "water":
+                return WATER;
+            case "rope":
+                return ROPE;
+            case "machete":
+                return MACHETE;
+            case "horse":
+                return HORSE;
+            case "boat":
+                return BOAT;
+            case "boots":
+                return BOOTS;
+            case "shovel":
+                return SHOVEL;
+            case "sword":
+                return SWORD;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @param ordinal The position of the item in the enum (the same as its bit number).
+     * @return the item at that position.
+     */
+    public static Item byOrdinal(int ordinal) {
+        return ITEMS[ordinal];
+    }
+
+    /**
+     * @return how many kinds of items there are.
+     */
+    public static int count() {
+        return ITEMS.length;
+    }
+
+    /**
+     * @return the item's name, the way the game prints it.
+     */
+    @Override
+    public String toString() {
+        return itemName;
+    }
+}
@@ -0,0 +1,159 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The JournalReplayer class plays recorded games back with no console, as fast as the CPU allows.<p>
+ * Each journal is read from the start, its commands are fed to a fresh GameEngine with the recorded seed,
+ * and the hunter's state at the end is compared with the state the journal recorded. <p>
+ * Usage: java JournalReplayer journal-or-folder...
+ */
+
+public class JournalReplayer {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: java JournalReplayer journal-or-folder...");
+            return;
+        }
+        List<Path> journals = findJournals(args);
+        AtomicLong failures = new AtomicLong();
+        long start = System.nanoTime();
+        journals.parallelStream().forEach(journal -> {
+            String problem = replay(journal);
+            if (problem != null) {
+                failures.incrementAndGet();
+                System.out.println(journal + ": " + problem);
+            }
+        });
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println("Replayed " + journals.size() + " journals in " + String.format("%.2f", seconds) + "s ("
+                + String.format("%.0f", journals.size() / seconds) + " per second), " + failures.get() + " mismatched");
+    }
+
+    /**
+     * @param args Journal files and folders of journals.
+     * @return every journal file named or found.
+     * @throws IOException if a folder can't be listed.
+     */
+    private static List<Path> findJournals(String[] args) throws IOException {
+        List<Path> journals = new ArrayList<>();
+        for (String arg : args) {
+            Path path = Path.of(arg);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> files = Files.walk(path)) {
+                    journals.addAll(files.filter(Files::isRegularFile).collect(Collectors.toList()));
+                }
+            } else {
+                journals.add(path);
+            }
+        }
+        return journals;
+    }
+
+    /**
+     * Replays one journal.
+     *
+     * @param journal The journal file.
+     * @return null if the replay reached the recorded final state (or no final state was recorded),
+     *         otherwise a description of what went wrong.
+     */
+    public static String replay(Path journal) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journal)))) {
+            if (in.readInt() != CommandJournal.MAGIC) {
+                return "not a journal";
+            }
+            byte version = in.readByte();
+            if (version < 1 || version > CommandJournal.VERSION) {
+                return "unknown journal version " + version;
+            }
+            long seed = in.readLong();
+            DifficultyProfile difficulty = DifficultyProfile.forMode(in.readUTF());
+            String name = in.readUTF();
+            // version 1 journals were all played without a map
+            int worldTowns = 0;
+            if (version >= 2) {
+                worldTowns = in.readInt();
+            }
+            if (difficulty == null) {
+                return "unknown mode";
+            }
+            GameEngine game = new GameEngine(name, difficulty, seed, worldTowns);
+            while (true) {
+                int type;
+                try {
+                    type = in.readByte();
+                } catch (EOFException e) {
+                    // the game was never finished, so there is nothing to compare against
+                    return null;
+                }
+                if (type == CommandJournal.CHOICE) {
+                    String choice = in.readUTF();
+                    // checkpointed just as the game on the console was, so an undo goes back to the same place
+                    if (game.getWorld() == null && GameEngine.canChangeGame(choice)) {
+                        game.checkpoint();
+                    }
+                    // shop visits have their own record, and saving doesn't change the game
+                    if (choice.equals("u")) {
+                        game.undo();
+                    } else if (!choice.equals("b") && !choice.equals("s") && !choice.equals("v")) {
+                        game.processChoice(choice);
+                        if (game.getWorld() == null && GameEngine.canChangeGame(choice)) {
+                            game.dropCheckpointIfUnchanged();
+                        }
+                    }
+                } else if (type == CommandJournal.SHOP) {
+                    String buyOrSell = in.readUTF();
+                    String item = in.readUTF();
+                    if (in.readBoolean()) {
+                        if (buyOrSell.equals("b")) {
+                            game.buy(item);
+                        } else {
+                            game.sell(item);
+                        }
+                    }
+                    if (game.getWorld() == null) {
+                        game.dropCheckpointIfUnchanged();
+                    }
+                } else if (type == CommandJournal.FINAL_STATE) {
+                    return compare(game.getHunter(), in.readInt(), in.readInt(), in.readUTF());
+                } else {
+                    return "unknown record type " + type;
+                }
+            }
+        } catch (EOFException e) {
+            return "journal is cut short";
+        } catch (IOException e) {
+            return "couldn't be read: " + e.getMessage();
+        }
+    }
+
+    /**
+     * @return null if the hunter matches the recorded state, otherwise what differs.
+     */
+    private static String compare(Hunter hunter, int gold, int kit, String treasures) {
+        String problem = "";
+        if (hunter.getGold() != gold) {
+            problem += " gold " + hunter.getGold() + " != " + gold;
+        }
+        if (hunter.getKit() != kit) {
+            problem += " kit " + hunter.getKit() + " != " + kit;
+        }
+        String replayed = CommandJournal.treasureList(hunter);
+        if (!replayed.equals(treasures)) {
+            problem += " treasures [" + replayed + "] != [" + treasures + "]";
+        }
+        if (problem.isEmpty()) {
+            return null;
+        }
+        return "replay differs:" + problem;
+    }
+}
@@ -0,0 +1,108 @@
+import java.io.PrintStream;
+
+/**
+ * The JsonRenderer class shows the game to programs: every message, prompt, menu screen and GameEvent is one
+ * compact JSON object on its own line, with the color codes taken out. <p>
+ * <pre>
+ *   {"event":"text","text":"What's your next move? "}
+ *   {"event":"menu","news":"...","gold":20,"kit":["water"],"treasures":[],"terrain":"Desert","tough":false,"hunted":false,"searched":false}
+ *   {"event":"brawl_won","delta":7,"gold":27}
+ * </pre>
+ * A client knows it is being asked something when a text line ends without a line break.
+ */
+
+public class JsonRenderer implements OutputRenderer {
+    // instance variables
+    private PrintStream out;
+    private StringBuilder json;
+
+    /**
+     * @param out Where the JSON lines are written.
+     */
+    public JsonRenderer(PrintStream out) {
+        this.out = out;
+        json = new StringBuilder(256);
+    }
+
+    @Override
+    public void text(String text) {
+        json.setLength(0);
+        json.append("{\"event\":\"text\",\"text\":");
+        appendString(json, text);
+        json.append("}\n");
+        out.append(json);
+    }
+
+    @Override
+    public void frame(String news, Hunter hunter, Town town) {
+        json.setLength(0);
+        json.append("{\"event\":\"menu\",\"news\":");
+        appendString(json, news);
+        json.append(",\"gold\":").append(hunter.getGold());
+        json.append(",\"kit\":[");
+        for (int bits = hunter.getKit(); bits != 0; bits &= bits - 1) {
+            json.append('"').append(Item.byOrdinal(Integer.numberOfTrailingZeros(bits))).append('"');
+            if ((bits & (bits - 1)) != 0) {
+                json.append(',');
+            }
+        }
+        json.append("],\"treasures\":[");
+        boolean first = true;
+        for (String treasure : hunter.getTreasures()) {
+            if (treasure != null) {
+                if (!first) {
+                    json.append(',');
+                }
+                appendString(json, treasure);
+                first = false;
+            }
+        }
+        json.append("],\"terrain\":\"").append(town.getTerrain().getTerrainName()).append('"');
+        json.append(",\"tough\":").append(town.isToughTown());
+        json.append(",\"hunted\":").append(town.isTownHunted());
+        json.append(",\"searched\":").append(town.getSearched());
+        json.append("}\n");
+        out.append(json);
+    }
+
+    @Override
+    public void onEvent(GameEvent event) {
+        json.setLength(0);
+        event.appendJson(json);
+        json.append('\n');
+        out.append(json);
+    }
+
+    @Override
+    public String getStyle() {
+        return "json";
+    }
+
+    /**
+     * Writes a String as a quoted JSON string, leaving out any color codes.
+     *
+     * @param json Where to write it.
+     * @param text The text.
+     */
+    public static void appendString(StringBuilder json, String text) {
+        json.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\033') {
+                // skip the whole color code, which ends with the letter m
+                while (i < text.length() && text.charAt(i) != 'm') {
+                    i++;
+                }
+            } else if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c == '\n') {
+                json.append("\\n");
+            } else if (c < ' ') {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
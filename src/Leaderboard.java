@@ -0,0 +1,406 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The Leaderboard class keeps every finished game on disk and answers "who are the best N hunters" instantly.<p>
+ * Each difficulty has two files in the leaderboard folder. The log (mode.log) gets every finished game appended to
+ * it, so nothing is ever lost. The index (mode.top) is a memory-mapped file holding only the best TOP_CAPACITY
+ * games, kept in order, so recording a game is a binary search and a short shuffle of mapped memory, and reading
+ * the top N is N reads, however many millions of games are in the log. If the index goes missing it is rebuilt
+ * from the log. <p>
+ * Games are ranked by treasures found, then gold, then the fewest turns taken. <p>
+ * Several processes can share one folder, such as a server and the simulations beside it: a board is only changed
+ * while its process holds the lock on the log file, and the index's entry count is read from the file every time
+ * rather than remembered, so no process writes over another's games. Within a process, one Leaderboard should own
+ * the folder. <p>
+ * Entry layout, in both files (all numbers big-endian):
+ * <pre>
+ *   0  long    seed
+ *   8  int     gold
+ *  12  int     turns
+ *  16  byte    treasures found
+ *  17  byte    name length, then 46 bytes of UTF-8 name
+ * </pre>
+ * The index starts with a 16 byte header: int magic "THLB", byte layout version, and at 8 the int entry count. <p>
+ * Usage: java Leaderboard [mode] [count] [folder]
+ */
+
+public class Leaderboard implements Closeable {
+    // constants
+    public static final int TOP_CAPACITY = 1000;
+    public static final int ENTRY_SIZE = 64;
+    private static final int NAME_LENGTH = 46;
+    private static final int HEADER_SIZE = 16;
+    private static final int MAGIC = 0x54484c42;
+    private static final byte VERSION = 1;
+    private static final int REBUILD_BUFFER_ENTRIES = 4096;
+
+    // instance variables
+    private Path folder;
+    private HashMap<String, Board> boards;
+
+    /**
+     * @param folder Where the leaderboard files are kept; it is created if it doesn't exist.
+     * @throws IOException if the folder can't be created.
+     */
+    public Leaderboard(Path folder) throws IOException {
+        this.folder = folder;
+        Files.createDirectories(folder);
+        boards = new HashMap<>();
+    }
+
+    public static void main(String[] args) throws IOException {
+        String mode = "n";
+        int count = 10;
+        Path folder = Path.of("leaderboard");
+        if (args.length > 0) {
+            mode = args[0];
+        }
+        if (args.length > 1) {
+            count = Integer.parseInt(args[1]);
+        }
+        if (args.length > 2) {
+            folder = Path.of(args[2]);
+        }
+        DifficultyProfile difficulty = DifficultyProfile.forMode(mode);
+        if (difficulty == null) {
+            System.out.println("Unknown mode: " + mode);
+            return;
+        }
+        try (Leaderboard leaderboard = new Leaderboard(folder)) {
+            System.out.println("Best " + difficulty.getName() + " hunters, out of "
+                    + leaderboard.getGameCount(difficulty) + " games:");
+            System.out.print(leaderboard.report(difficulty, count));
+        }
+    }
+
+    /**
+     * Records a finished game.
+     *
+     * @param game The game.
+     * @return the game's place in the top TOP_CAPACITY, starting from 1, or 0 if it didn't make it.
+     * @throws IOException if the leaderboard files can't be written.
+     */
+    public int record(GameEngine game) throws IOException {
+        Hunter hunter = game.getHunter();
+        int treasures = 0;
+        for (String treasure : hunter.getTreasures()) {
+            if (treasure != null) {
+                treasures++;
+            }
+        }
+        return record(game.getDifficulty(), new Entry(hunter.getHunterName(), hunter.getGold(), treasures,
+                game.getTurns(), game.getSeed()));
+    }
+
+    /**
+     * Records a finished game.
+     *
+     * @param difficulty The difficulty it was played at.
+     * @param entry The game.
+     * @return the game's place in the top TOP_CAPACITY, starting from 1, or 0 if it didn't make it.
+     * @throws IOException if the leaderboard files can't be written.
+     */
+    public int record(DifficultyProfile difficulty, Entry entry) throws IOException {
+        return board(difficulty).record(entry);
+    }
+
+    /**
+     * @param difficulty Which leaderboard.
+     * @param count How many games to return; at most TOP_CAPACITY are kept.
+     * @return the best games, best first.
+     * @throws IOException if the leaderboard files can't be read.
+     */
+    public List<Entry> top(DifficultyProfile difficulty, int count) throws IOException {
+        return board(difficulty).top(count);
+    }
+
+    /**
+     * @param difficulty Which leaderboard.
+     * @return how many games have ever been recorded at that difficulty.
+     * @throws IOException if the leaderboard files can't be read.
+     */
+    public long getGameCount(DifficultyProfile difficulty) throws IOException {
+        return board(difficulty).getGameCount();
+    }
+
+    /**
+     * @param difficulty Which leaderboard.
+     * @param count How many games to show.
+     * @return a table of the best games, one row each.
+     * @throws IOException if the leaderboard files can't be read.
+     */
+    public String report(DifficultyProfile difficulty, int count) throws IOException {
+        StringBuilder table = new StringBuilder();
+        table.append(String.format("%4s  %-20s %9s %6s %6s  %s%n", "#", "Name", "Treasures", "Gold", "Turns", "Seed"));
+        int place = 1;
+        for (Entry entry : top(difficulty, count)) {
+            table.append(String.format("%4d  %-20s %9d %6d %6d  %d%n", place, entry.getName(), entry.getTreasures(),
+                    entry.getGold(), entry.getTurns(), entry.getSeed()));
+            place++;
+        }
+        return table.toString();
+    }
+
+    /**
+     * Makes sure everything recorded so far has reached the disk, then closes every file.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        for (Board board : boards.values()) {
+            board.close();
+        }
+        boards.clear();
+    }
+
+    /**
+     * Opens a difficulty's files the first time they are needed.
+     */
+    private synchronized Board board(DifficultyProfile difficulty) throws IOException {
+        Board board = boards.get(difficulty.getMode());
+        if (board == null) {
+            board = new Board(folder.resolve(difficulty.getMode() + ".log"), folder.resolve(difficulty.getMode() + ".top"));
+            boards.put(difficulty.getMode(), board);
+        }
+        return board;
+    }
+
+    /**
+     * One finished game, as the leaderboard keeps it.
+     */
+    public static class Entry {
+        private final String name;
+        private final int gold;
+        private final int treasures;
+        private final int turns;
+        private final long seed;
+
+        /**
+         * @param name The hunter's name; only the first 46 bytes of it are kept.
+         * @param gold The hunter's gold at the end.
+         * @param treasures How many treasures they found.
+         * @param turns How many moves the game took.
+         * @param seed The game's seed, so it can be played again.
+         */
+        public Entry(String name, int gold, int treasures, int turns, long seed) {
+            this.name = name;
+            this.gold = gold;
+            this.treasures = treasures;
+            this.turns = turns;
+            this.seed = seed;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getGold() {
+            return gold;
+        }
+
+        public int getTreasures() {
+            return treasures;
+        }
+
+        public int getTurns() {
+            return turns;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        /**
+         * @return true if this game ranks strictly above a game with these results.
+         */
+        private boolean beats(int otherTreasures, int otherGold, int otherTurns) {
+            if (treasures != otherTreasures) {
+                return treasures > otherTreasures;
+            }
+            if (gold != otherGold) {
+                return gold > otherGold;
+            }
+            return turns < otherTurns;
+        }
+
+        private void write(ByteBuffer buffer, int base) {
+            buffer.putLong(base, seed);
+            buffer.putInt(base + 8, gold);
+            buffer.putInt(base + 12, turns);
+            buffer.put(base + 16, (byte) treasures);
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            // cut at a whole character, the same way SnapshotStore cuts names
+            int length = SnapshotStore.fittingLength(bytes, NAME_LENGTH);
+            buffer.put(base + 17, (byte) length);
+            buffer.put(base + 18, bytes, 0, length);
+        }
+
+        /**
+         * @return the entry, or null if its name length is damaged.
+         */
+        private static Entry read(ByteBuffer buffer, int base) {
+            int length = buffer.get(base + 17);
+            if (length < 0 || length > NAME_LENGTH) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(base + 18, bytes);
+            return new Entry(new String(bytes, StandardCharsets.UTF_8), buffer.getInt(base + 8), buffer.get(base + 16),
+                    buffer.getInt(base + 12), buffer.getLong(base));
+        }
+    }
+
+    /**
+     * The log and index of one difficulty. Each board has its own lock, so games at different difficulties never
+     * wait on each other.
+     */
+    private static class Board {
+        private final FileChannel log;
+        private final FileChannel indexChannel;
+        private final MappedByteBuffer index;
+        private final ByteBuffer entryBuffer;
+
+        private Board(Path logPath, Path indexPath) throws IOException {
+            log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            indexChannel = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) TOP_CAPACITY * ENTRY_SIZE);
+            entryBuffer = ByteBuffer.allocate(ENTRY_SIZE);
+            // another process may be building the index at the same moment
+            FileLock lock = log.lock();
+            try {
+                if (index.getInt(0) != MAGIC || index.get(4) != VERSION) {
+                    rebuild();
+                }
+            } finally {
+                lock.release();
+            }
+        }
+
+        private synchronized int record(Entry entry) throws IOException {
+            entryBuffer.clear();
+            entry.write(entryBuffer, 0);
+            FileLock lock = log.lock();
+            try {
+                // a game cut off half-written by a crash is written over, so the log stays in whole entries
+                long end = log.size() - log.size() % ENTRY_SIZE;
+                while (entryBuffer.hasRemaining()) {
+                    log.write(entryBuffer, end + entryBuffer.position());
+                }
+                return insert(entry);
+            } finally {
+                lock.release();
+            }
+        }
+
+        private synchronized List<Entry> top(int wanted) throws IOException {
+            FileLock lock = log.lock(0, Long.MAX_VALUE, true);
+            try {
+                int shown = Math.min(wanted, index.getInt(8));
+                List<Entry> entries = new ArrayList<>(shown);
+                for (int i = 0; i < shown; i++) {
+                    Entry entry = Entry.read(index, offset(i));
+                    if (entry != null) {
+                        entries.add(entry);
+                    }
+                }
+                return entries;
+            } finally {
+                lock.release();
+            }
+        }
+
+        private synchronized long getGameCount() throws IOException {
+            return log.size() / ENTRY_SIZE;
+        }
+
+        /**
+         * Puts a game into its place in the index, dropping the last game if the index is full. Only called while
+         * holding the lock on the log.
+         *
+         * @return the game's place, starting from 1, or 0 if it didn't make it.
+         */
+        private int insert(Entry entry) {
+            int count = index.getInt(8);
+            // the first place whose game the new one beats; ties go after the games already there
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int base = offset(middle);
+                if (entry.beats(index.get(base + 16), index.getInt(base + 8), index.getInt(base + 12))) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            if (low >= TOP_CAPACITY) {
+                return 0;
+            }
+            int last = Math.min(count, TOP_CAPACITY - 1);
+            // move everything below it down one place, starting from the bottom
+            for (int i = last; i > low; i--) {
+                int to = offset(i);
+                int from = offset(i - 1);
+                for (int b = 0; b < ENTRY_SIZE; b += 8) {
+                    index.putLong(to + b, index.getLong(from + b));
+                }
+            }
+            entry.write(index, offset(low));
+            index.putInt(8, last + 1);
+            return low + 1;
+        }
+
+        /**
+         * Builds the index again from every game in the log, leaving out any that are damaged. Only called while
+         * holding the lock on the log.
+         */
+        private void rebuild() throws IOException {
+            index.putInt(8, 0);
+            ByteBuffer chunk = ByteBuffer.allocate(REBUILD_BUFFER_ENTRIES * ENTRY_SIZE);
+            long position = 0;
+            long end = log.size() - log.size() % ENTRY_SIZE;
+            while (position < end) {
+                chunk.clear();
+                chunk.limit((int) Math.min(chunk.capacity(), end - position));
+                while (chunk.hasRemaining()) {
+                    if (log.read(chunk, position + chunk.position()) < 0) {
+                        break;
+                    }
+                }
+                for (int base = 0; base + ENTRY_SIZE <= chunk.position(); base += ENTRY_SIZE) {
+                    Entry entry = Entry.read(chunk, base);
+                    if (entry != null) {
+                        insert(entry);
+                    }
+                }
+                position += chunk.position();
+            }
+            index.putInt(0, MAGIC);
+            index.put(4, VERSION);
+        }
+
+        private void close() throws IOException {
+            index.force();
+            log.force(false);
+            log.close();
+            indexChannel.close();
+        }
+
+        private static int offset(int place) {
+            return HEADER_SIZE + place * ENTRY_SIZE;
+        }
+    }
+}
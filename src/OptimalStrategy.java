@@ -0,0 +1,45 @@
+/**
+ * The OptimalStrategy class plays the moves PolicySolver worked out to give the best chance of winning.<p>
+ * Solving takes a few seconds, so it is done once, when the strategy is made, and the table is then shared
+ * by every game; picking a move is a single lookup.
+ */
+
+public class OptimalStrategy implements Strategy {
+    // instance variables
+    private final PolicySolver solver;
+
+    /**
+     * Solves the game for one difficulty.
+     *
+     * @param difficulty The difficulty this strategy will play at.
+     */
+    public OptimalStrategy(DifficultyProfile difficulty) {
+        solver = new PolicySolver(difficulty);
+        solver.solve();
+    }
+
+    @Override
+    public String getName() {
+        return "optimal";
+    }
+
+    @Override
+    public Action nextAction(GameView view) {
+        int move = solver.bestAction(view.getGold(), view.getKit(), view.getTreasureCount(), view.getTerrain(),
+                view.isToughTown(), view.isTownHunted(), view.isTownSearched());
+        if (move >= PolicySolver.SELL) {
+            return Action.sell(Item.byOrdinal(move - PolicySolver.SELL));
+        } else if (move >= PolicySolver.BUY) {
+            return Action.buy(Item.byOrdinal(move - PolicySolver.BUY));
+        } else if (move == PolicySolver.LOOK_FOR_TROUBLE) {
+            return Action.LOOK_FOR_TROUBLE;
+        } else if (move == PolicySolver.HUNT) {
+            return Action.HUNT;
+        } else if (move == PolicySolver.DIG) {
+            return Action.DIG;
+        } else if (move == PolicySolver.MOVE) {
+            return Action.MOVE;
+        }
+        return Action.QUIT;
+    }
+}
@@ -0,0 +1,49 @@
+import java.io.PrintStream;
+
+/**
+ * The OutputRenderer interface decides what the player's screen looks like: the game's sentences with colors (ansi),
+ * the same sentences without colors (plain), or one JSON object per line for programs (json).<p>
+ * Each GameConsole has one, and a player can switch with "/style plain" (or ansi, or json) at any prompt.
+ * A renderer is also told about every GameEvent; the text styles ignore them, since the sentences already say
+ * the same thing, and the JSON style writes them out.
+ */
+
+public interface OutputRenderer extends GameListener {
+
+    /**
+     * Shows some of the game's text, such as a message or a prompt.
+     *
+     * @param text The text, which may contain color codes and line breaks.
+     */
+    void text(String text);
+
+    /**
+     * Shows one menu screen.
+     *
+     * @param news The latest news from town.
+     * @param hunter The hunter, for their gold, kit and treasures.
+     * @param town The current town.
+     */
+    void frame(String news, Hunter hunter, Town town);
+
+    /**
+     * @return the style's name: "ansi", "plain" or "json".
+     */
+    String getStyle();
+
+    /**
+     * @param style "ansi", "plain" or "json".
+     * @param out Where the renderer writes.
+     * @return a renderer in that style, or null if there is no such style.
+     */
+    static OutputRenderer forStyle(String style, PrintStream out) {
+        if (style.equals("ansi")) {
+            return new TextRenderer(out, true);
+        } else if (style.equals("plain")) {
+            return new TextRenderer(out, false);
+        } else if (style.equals("json")) {
+            return new JsonRenderer(out);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,333 @@
+import java.util.stream.IntStream;
+
+/**
+ * The PolicySolver class works out the best possible way to play Treasure Hunter at each difficulty.<p>
+ * Everything the player can see is packed into one int: gold, kit, how many treasures have been found, the town's
+ * terrain, whether it is a tough town, and whether the hunter has hunted or dug there yet. The solver runs value
+ * iteration over every such state, with the odds taken straight from Town and the prices from the shop, and records
+ * the chance of winning from each state and the move that gives that chance. <p>
+ * Treasures are never lost, so the table is solved one treasure count at a time, starting with two treasures found;
+ * each count only needs the win chances already worked out for the counts above it. The three treasures are equally
+ * likely, so which ones have been found doesn't matter, only how many. Within a count, every sweep updates the table
+ * in place, one kit per task, spread over all the cores. <p>
+ * A few simplifications keep the table small: gold above the cap counts as the cap, and the treasure hidden in a
+ * town is treated as unknown until it is hunted for (which is all the player can know anyway). <p>
+ * Usage: java PolicySolver [mode] [gold cap]
+ */
+
+public class PolicySolver {
+    // constants
+    public static final int QUIT = 0;
+    public static final int LOOK_FOR_TROUBLE = 1;
+    public static final int HUNT = 2;
+    public static final int DIG = 3;
+    public static final int MOVE = 4;
+    public static final int BUY = 8;
+    public static final int SELL = 16;
+    private static final int TREASURES_TO_WIN = 3;
+    private static final int MAX_SWEEPS = 10_000;
+    private static final double TOLERANCE = 1e-6;
+    // how far apart neighbouring states are in the table
+    private static final int FLAG_STATES = 4;
+    private static final int TOUGH_STRIDE = FLAG_STATES;
+    private static final int TERRAIN_STRIDE = 2 * TOUGH_STRIDE;
+    private static final int TREASURE_STRIDE = Terrain.count() * TERRAIN_STRIDE;
+    private static final int KIT_STRIDE = TREASURES_TO_WIN * TREASURE_STRIDE;
+    private static final int HUNTED = 1;
+    private static final int SEARCHED = 2;
+
+    // instance variables
+    private DifficultyProfile difficulty;
+    private int goldCap;
+    private int kitStates;
+    private int goldStride;
+    private int[] buyPrices;
+    private int[] sellPrices;
+    private float[] value;
+    private float[] arrival;
+    private byte[] policy;
+    private int sweeps;
+
+    /**
+     * Sets the gold cap to what it costs to buy one of everything.
+     *
+     * @param difficulty The difficulty to solve.
+     */
+    public PolicySolver(DifficultyProfile difficulty) {
+        this(difficulty, costOfEverything(difficulty.getPrices()));
+    }
+
+    /**
+     * @param difficulty The difficulty to solve.
+     * @param goldCap Gold above this counts as this much.
+     */
+    public PolicySolver(DifficultyProfile difficulty, int goldCap) {
+        this.difficulty = difficulty;
+        this.goldCap = goldCap;
+        PriceCatalog prices = difficulty.getPrices();
+        if (prices.isSwordsForSale()) {
+            kitStates = 1 << Item.count();
+        } else {
+            // the sword can never be in the kit
+            kitStates = 1 << (Item.count() - 1);
+        }
+        buyPrices = new int[Item.count()];
+        sellPrices = new int[Item.count()];
+        for (int i = 0; i < Item.count(); i++) {
+            Item item = Item.byOrdinal(i);
+            // -1 marks what the shop won't sell, or won't buy back
+            buyPrices[i] = -1;
+            sellPrices[i] = -1;
+            if (prices.isForSale(item) && (prices.getBuyPrice(item) > 0 || item == Item.SWORD)) {
+                buyPrices[i] = prices.getBuyPrice(item);
+            }
+            if (prices.getSellPrice(item) > 0 || (item == Item.SWORD && prices.isSwordsForSale())) {
+                sellPrices[i] = prices.getSellPrice(item);
+            }
+        }
+        goldStride = kitStates * KIT_STRIDE;
+        value = new float[(goldCap + 1) * goldStride];
+        arrival = new float[(goldCap + 1) * kitStates * TREASURES_TO_WIN];
+        policy = new byte[value.length];
+    }
+
+    public static void main(String[] args) {
+        String[] modes = {"e", "n", "h", "s"};
+        if (args.length > 0) {
+            modes = new String[]{args[0]};
+        }
+        for (String mode : modes) {
+            DifficultyProfile difficulty = DifficultyProfile.forMode(mode);
+            if (difficulty == null) {
+                System.out.println("Unknown mode: " + mode);
+                return;
+            }
+            long start = System.nanoTime();
+            PolicySolver solver;
+            if (args.length > 1) {
+                solver = new PolicySolver(difficulty, Integer.parseInt(args[1]));
+            } else {
+                solver = new PolicySolver(difficulty);
+            }
+            solver.solve();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println(difficulty.getName() + " (" + mode + "): best possible win chance "
+                    + String.format("%.4f", solver.startingWinChance()) + ", " + solver.getStateCount() + " states, "
+                    + solver.getSweeps() + " sweeps, " + String.format("%.2f", seconds) + "s");
+        }
+    }
+
+    /**
+     * @param prices A price list.
+     * @return what it costs to buy one of every item on the list.
+     */
+    private static int costOfEverything(PriceCatalog prices) {
+        int total = 0;
+        for (int i = 0; i < Item.count(); i++) {
+            Item item = Item.byOrdinal(i);
+            if (prices.isForSale(item)) {
+                total += prices.getBuyPrice(item);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Runs value iteration on each treasure count in turn until no state's win chance moves by more than the tolerance.
+     */
+    public void solve() {
+        sweeps = 0;
+        for (int treasures = TREASURES_TO_WIN - 1; treasures >= 0; treasures--) {
+            int found = treasures;
+            double change = 1;
+            int layerSweeps = 0;
+            while (change > TOLERANCE && layerSweeps < MAX_SWEEPS) {
+                // gold goes up and down by brawling, so alternate the direction the gold levels are swept in
+                boolean upward = layerSweeps % 2 == 0;
+                change = IntStream.range(0, kitStates).parallel()
+                        .mapToDouble(kit -> sweep(kit, found, upward)).max().orElse(0);
+                layerSweeps++;
+            }
+            sweeps += layerSweeps;
+        }
+    }
+
+    public int getGoldCap() {
+        return goldCap;
+    }
+
+    public int getStateCount() {
+        return value.length;
+    }
+
+    public int getSweeps() {
+        return sweeps;
+    }
+
+    /**
+     * @return the chance of winning a new game with perfect play, averaged over the first town.
+     */
+    public double startingWinChance() {
+        int gold = Math.min(difficulty.getStartingGold(), goldCap);
+        int kit = 0;
+        if (difficulty.isFullKit()) {
+            kit = Item.WATER.getBit() | Item.ROPE.getBit() | Item.MACHETE.getBit() | Item.HORSE.getBit()
+                    | Item.BOAT.getBit() | Item.BOOTS.getBit() | Item.SHOVEL.getBit();
+        }
+        return arrival[(gold * kitStates + kit) * TREASURES_TO_WIN];
+    }
+
+    /**
+     * @param gold The hunter's gold.
+     * @param kit The hunter's kit, as from Hunter.getKit().
+     * @param treasures How many treasures the hunter has found.
+     * @return the chance of winning from this state with perfect play.
+     */
+    public double winChance(int gold, int kit, int treasures, Terrain terrain, boolean toughTown, boolean hunted,
+                            boolean searched) {
+        if (treasures >= TREASURES_TO_WIN) {
+            return 1;
+        }
+        return value[index(gold, kit, treasures, terrain, toughTown, hunted, searched)];
+    }
+
+    /**
+     * @return the best move from a state: QUIT, LOOK_FOR_TROUBLE, HUNT, DIG, MOVE, or BUY/SELL plus the item's ordinal.
+     */
+    public int bestAction(int gold, int kit, int treasures, Terrain terrain, boolean toughTown, boolean hunted,
+                          boolean searched) {
+        return policy[index(gold, kit, treasures, terrain, toughTown, hunted, searched)];
+    }
+
+    /**
+     * Packs a state into its place in the table.
+     */
+    private int index(int gold, int kit, int treasures, Terrain terrain, boolean toughTown, boolean hunted,
+                      boolean searched) {
+        int flags = (hunted ? HUNTED : 0) | (searched ? SEARCHED : 0);
+        return Math.min(gold, goldCap) * goldStride + kit * KIT_STRIDE + treasures * TREASURE_STRIDE
+                + terrain.getIndex() * TERRAIN_STRIDE + (toughTown ? TOUGH_STRIDE : 0) + flags;
+    }
+
+    /**
+     * Works out the win chance on walking into a brand new town (any terrain, tough or not, nothing done there yet).
+     */
+    private void updateArrival(int gold, int kit, int treasures) {
+        double toughness = difficulty.getToughness();
+        int town = gold * goldStride + kit * KIT_STRIDE + treasures * TREASURE_STRIDE;
+        double sum = 0;
+        for (int terrain = 0; terrain < Terrain.count(); terrain++) {
+            sum += (1 - toughness) * value[town] + toughness * value[town + TOUGH_STRIDE];
+            town += TERRAIN_STRIDE;
+        }
+        arrival[(gold * kitStates + kit) * TREASURES_TO_WIN + treasures] = (float) (sum / Terrain.count());
+    }
+
+    /**
+     * Updates every state with the given kit and treasure count, one gold level at a time.
+     *
+     * @param kit The items held, one bit each.
+     * @param treasures How many treasures have been found.
+     * @param upward Whether to go from no gold up to the cap, or the other way.
+     * @return the biggest change in any state's win chance.
+     */
+    private double sweep(int kit, int treasures, boolean upward) {
+        double breakChance = difficulty.getBreakChance();
+        boolean hasSword = (kit & Item.SWORD.getBit()) != 0;
+        boolean kitFull = Integer.bitCount(kit) >= difficulty.getKitSize();
+        // a third treasure wins outright; otherwise the hunt moves the hunter up a table
+        boolean lastTreasure = treasures == TREASURES_TO_WIN - 1;
+        // each treasure gets an even share of the difficulty's treasure chance; the rest is dust
+        double newTreasure = (TREASURES_TO_WIN - treasures) * difficulty.getTreasureChance() / TREASURES_TO_WIN;
+        double change = 0;
+        for (int step = 0; step <= goldCap; step++) {
+            int gold = upward ? step : goldCap - step;
+            int arriveWithKit = (gold * kitStates + kit) * TREASURES_TO_WIN + treasures;
+            for (int terrain = 0; terrain < Terrain.count(); terrain++) {
+                Item needed = Terrain.byIndex(terrain).getNeededItem();
+                for (int tough = 0; tough < 2; tough++) {
+                    double noTrouble = difficulty.getNoTroubleChance(tough == 1);
+                    double brawlWin = hasSword ? 1 : 1 - noTrouble;
+                    // hunting and digging only ever set these flags, so the states that have them are done first
+                    for (int flags = FLAG_STATES - 1; flags >= 0; flags--) {
+                        int here = gold * goldStride + kit * KIT_STRIDE + treasures * TREASURE_STRIDE
+                                + terrain * TERRAIN_STRIDE + tough * TOUGH_STRIDE + flags;
+                        double best = 0;
+                        int bestMove = QUIT;
+
+                        // hunting, digging and moving come first so they win ties and the policy makes progress
+                        if ((flags & HUNTED) == 0) {
+                            double found = lastTreasure ? 1 : value[here + TREASURE_STRIDE + HUNTED];
+                            double v = newTreasure * found + (1 - newTreasure) * value[here + HUNTED];
+                            if (v > best) {
+                                best = v;
+                                bestMove = HUNT;
+                            }
+                        }
+                        if ((flags & SEARCHED) == 0 && (kit & Item.SHOVEL.getBit()) != 0) {
+                            double v = 0.5 * value[here + SEARCHED];
+                            for (int amount = 1; amount <= 20; amount++) {
+                                v += 0.5 / 20 * value[here + SEARCHED + (Math.min(gold + amount, goldCap) - gold) * goldStride];
+                            }
+                            if (v > best) {
+                                best = v;
+                                bestMove = DIG;
+                            }
+                        }
+                        if ((kit & needed.getBit()) != 0) {
+                            int broken = (kit & ~needed.getBit()) - kit;
+                            double v = (1 - breakChance) * arrival[arriveWithKit]
+                                    + breakChance * arrival[arriveWithKit + broken * TREASURES_TO_WIN];
+                            if (v > best) {
+                                best = v;
+                                bestMove = MOVE;
+                            }
+                        }
+
+                        // looking for trouble: a brawl for 1 to 10 gold, or nothing happens and the hunter
+                        // can just look again, so only the brawls count
+                        double v = 0;
+                        for (int diff = 1; diff <= 10; diff++) {
+                            v += 0.1 * brawlWin * value[here + (Math.min(gold + diff, goldCap) - gold) * goldStride];
+                            // losing with nothing left to pay is game over, which is worth nothing
+                            if (gold - diff > 0) {
+                                v += 0.1 * (1 - brawlWin) * value[here - diff * goldStride];
+                            }
+                        }
+                        if (v > best) {
+                            best = v;
+                            bestMove = LOOK_FOR_TROUBLE;
+                        }
+
+                        for (int i = 0; i < Item.count(); i++) {
+                            int bit = 1 << i;
+                            if ((kit & bit) == 0) {
+                                int cost = hasSword ? 0 : buyPrices[i];
+                                if (!kitFull && buyPrices[i] >= 0 && gold >= cost) {
+                                    double buy = value[here - cost * goldStride + bit * KIT_STRIDE];
+                                    if (buy > best) {
+                                        best = buy;
+                                        bestMove = BUY + i;
+                                    }
+                                }
+                            } else if (sellPrices[i] >= 0) {
+                                int price = Math.min(gold + sellPrices[i], goldCap) - gold;
+                                double sell = value[here + price * goldStride - bit * KIT_STRIDE];
+                                if (sell > best) {
+                                    best = sell;
+                                    bestMove = SELL + i;
+                                }
+                            }
+                        }
+
+                        change = Math.max(change, best - value[here]);
+                        value[here] = (float) best;
+                        policy[here] = (byte) bestMove;
+                    }
+                }
+            }
+            updateArrival(gold, kit, treasures);
+        }
+        return change;
+    }
+}
@@ -0,0 +1,408 @@
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * The Population class plays millions of hunters at once, each in their own game, with no Hunter or Town objects
+ * at all.<p>
+ * Everything a hunter's game needs is packed into a few bytes in parallel arrays: their gold, their kit (one bit
+ * per Item), their treasures and whether the game is over, the town they are in (terrain, toughness, the hidden
+ * treasure, and whether it has been hunted and dug), and their own GameRandom state. That is 15 bytes a hunter,
+ * so ten million hunters fit in about 150 MB. <p>
+ * Each call to step() gives every hunter still playing one turn, walking the arrays in chunks on every core.
+ * Every hunter plays by the ShovelFirstStrategy's rules and rolls in the same order as a GameEngine, so hunter i
+ * plays exactly the same game as BatchSimulator's game i from the same seed. <p>
+ * Usage: java Population [hunters] [mode] [seed]
+ */
+
+public class Population {
+    // constants
+    private static final int CHUNK = 1 << 14;
+    private static final int DONE = 0x80;
+    private static final int ALL_TREASURES = 0x7;
+    private static final int TERRAIN_BITS = 0x7;
+    private static final int TOUGH = 0x8;
+    private static final int TREASURE_SHIFT = 4;
+    private static final int DUST = 3;
+    private static final int HUNTED = 0x40;
+    private static final int SEARCHED = 0x80;
+
+    // instance variables
+    private final DifficultyProfile difficulty;
+    private final int size;
+    private final long[] random;
+    private final int[] gold;
+    private final byte[] kit;
+    private final byte[] treasures;
+    private final byte[] towns;
+    private final int[] neededBit;
+    private final int[] neededPrice;
+    private final int shovelPrice;
+    private final int kitSize;
+    private final LongAdder wins;
+    private final LongAdder losses;
+    private final LongAdder turnsToWin;
+    private int turns;
+    private int playing;
+    private long hunterTurns;
+
+    /**
+     * @param difficulty The difficulty every hunter plays at.
+     * @param size How many hunters there are.
+     * @param seed The seed of the whole population; hunter i's game is seeded like BatchSimulator's game i.
+     */
+    public Population(DifficultyProfile difficulty, int size, long seed) {
+        this.difficulty = difficulty;
+        this.size = size;
+        random = new long[size];
+        gold = new int[size];
+        kit = new byte[size];
+        treasures = new byte[size];
+        towns = new byte[size];
+        PriceCatalog prices = difficulty.getPrices();
+        neededBit = new int[Terrain.count()];
+        neededPrice = new int[Terrain.count()];
+        for (int t = 0; t < Terrain.count(); t++) {
+            Item needed = Terrain.byIndex(t).getNeededItem();
+            neededBit[t] = needed.getBit();
+            neededPrice[t] = prices.getBuyPrice(needed);
+        }
+        shovelPrice = prices.getBuyPrice(Item.SHOVEL);
+        kitSize = difficulty.getKitSize();
+        wins = new LongAdder();
+        losses = new LongAdder();
+        turnsToWin = new LongAdder();
+        turns = 0;
+        playing = size;
+        hunterTurns = 0;
+
+        int startingKit = new Hunter("", difficulty).getKit();
+        IntStream.range(0, chunkCount()).parallel().forEach(chunk -> {
+            int end = Math.min(size, (chunk + 1) * CHUNK);
+            for (int i = chunk * CHUNK; i < end; i++) {
+                gold[i] = difficulty.getStartingGold();
+                kit[i] = (byte) startingKit;
+                long state = BatchSimulator.gameSeed(seed, i);
+                state = GameRandom.advance(state);
+                int town = GameRandom.intAt(state, Terrain.count());
+                state = GameRandom.advance(state);
+                if (GameRandom.doubleAt(state) < difficulty.getToughness()) {
+                    town |= TOUGH;
+                }
+                state = GameRandom.advance(state);
+                town |= hiddenTreasure(GameRandom.doubleAt(state), difficulty.getTreasureChance()) << TREASURE_SHIFT;
+                towns[i] = (byte) town;
+                random[i] = state;
+            }
+        });
+    }
+
+    public static void main(String[] args) {
+        int hunters = 10_000_000;
+        String mode = "n";
+        long seed = 42;
+        if (args.length > 0) {
+            hunters = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            mode = args[1];
+        }
+        if (args.length > 2) {
+            seed = Long.parseLong(args[2]);
+        }
+        DifficultyProfile difficulty = DifficultyProfile.forMode(mode);
+        if (difficulty == null) {
+            System.out.println("Unknown mode: " + mode);
+            return;
+        }
+
+        long start = System.nanoTime();
+        Population population = new Population(difficulty, hunters, seed);
+        double setup = (System.nanoTime() - start) / 1e9;
+        start = System.nanoTime();
+        population.run(BatchSimulator.MAX_TURNS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Runtime runtime = Runtime.getRuntime();
+        System.out.println("Made " + hunters + " " + difficulty.getName() + " hunters in " + String.format("%.2f", setup)
+                + "s and played " + population.getTurns() + " turns on " + runtime.availableProcessors() + " cores in "
+                + String.format("%.2f", seconds) + "s (" + String.format("%.1f", population.getHunterTurns()
+                / seconds / 1e6) + "M hunter-turns per second)");
+        System.out.println("Wins: " + population.getWins() + " (" + String.format("%.2f", 100.0 * population.getWins()
+                / hunters) + "%), losses: " + population.getLosses() + ", out of turns: " + population.getPlaying());
+        System.out.println("Turns to win: " + String.format("%.1f", population.getMeanTurnsToWin())
+                + ", mean gold: " + String.format("%.1f", population.getMeanGold())
+                + ", heap used: " + (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024) + " MB");
+    }
+
+    // accessors
+    public DifficultyProfile getDifficulty() {
+        return difficulty;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return how many times step() has been called.
+     */
+    public int getTurns() {
+        return turns;
+    }
+
+    /**
+     * @return how many hunters' games aren't over yet.
+     */
+    public int getPlaying() {
+        return playing;
+    }
+
+    /**
+     * @return how many turns have been played, adding up every hunter's.
+     */
+    public long getHunterTurns() {
+        return hunterTurns;
+    }
+
+    public long getWins() {
+        return wins.sum();
+    }
+
+    public long getLosses() {
+        return losses.sum();
+    }
+
+    /**
+     * @return the average number of turns a win took, or 0 if nobody has won.
+     */
+    public double getMeanTurnsToWin() {
+        long won = wins.sum();
+        if (won == 0) {
+            return 0;
+        }
+        return (double) turnsToWin.sum() / won;
+    }
+
+    /**
+     * @return the average gold across every hunter, playing or not.
+     */
+    public double getMeanGold() {
+        return IntStream.range(0, chunkCount()).parallel().mapToLong(chunk -> {
+            long total = 0;
+            int end = Math.min(size, (chunk + 1) * CHUNK);
+            for (int i = chunk * CHUNK; i < end; i++) {
+                total += gold[i];
+            }
+            return total;
+        }).sum() / (double) size;
+    }
+
+    /**
+     * @param hunter Which hunter.
+     * @return the hunter's gold.
+     */
+    public int getGold(int hunter) {
+        return gold[hunter];
+    }
+
+    /**
+     * @param hunter Which hunter.
+     * @return the hunter's kit, one bit per Item.
+     */
+    public int getKit(int hunter) {
+        return kit[hunter] & 0xff;
+    }
+
+    /**
+     * @param hunter Which hunter.
+     * @return how many of the three treasures the hunter has found.
+     */
+    public int getTreasureCount(int hunter) {
+        return Integer.bitCount(treasures[hunter] & ALL_TREASURES);
+    }
+
+    /**
+     * @param hunter Which hunter.
+     * @return true if the hunter's game is over, won or lost.
+     */
+    public boolean isGameOver(int hunter) {
+        return (treasures[hunter] & DONE) != 0;
+    }
+
+    /**
+     * @param hunter Which hunter.
+     * @return the terrain around the hunter's town.
+     */
+    public Terrain getTerrain(int hunter) {
+        return Terrain.byIndex(towns[hunter] & TERRAIN_BITS);
+    }
+
+    /**
+     * Plays turns until every game is over or the turn limit is reached.
+     *
+     * @param maxTurns The most turns any hunter gets.
+     */
+    public void run(int maxTurns) {
+        while (playing > 0 && turns < maxTurns) {
+            step();
+        }
+    }
+
+    /**
+     * Gives every hunter still playing one turn.
+     *
+     * @return how many hunters are still playing afterwards.
+     */
+    public int step() {
+        turns++;
+        hunterTurns += playing;
+        playing = IntStream.range(0, chunkCount()).parallel().map(this::stepChunk).sum();
+        return playing;
+    }
+
+    private int chunkCount() {
+        return (size + CHUNK - 1) / CHUNK;
+    }
+
+    /**
+     * Plays one turn for every hunter in a chunk. Each chunk's totals are kept in locals and added to the shared
+     * counters once at the end, so the cores never touch the same memory in the loop.
+     *
+     * @param chunk Which chunk of CHUNK hunters.
+     * @return how many of them are still playing.
+     */
+    private int stepChunk(int chunk) {
+        int end = Math.min(size, (chunk + 1) * CHUNK);
+        int stillPlaying = 0;
+        int won = 0;
+        int lost = 0;
+        for (int i = chunk * CHUNK; i < end; i++) {
+            int found = treasures[i];
+            if ((found & DONE) != 0) {
+                continue;
+            }
+            long state = random[i];
+            int coins = gold[i];
+            int items = kit[i] & 0xff;
+            int town = towns[i] & 0xff;
+            int terrain = town & TERRAIN_BITS;
+            int needed = neededBit[terrain];
+            boolean hasShovel = (items & Item.SHOVEL.getBit()) != 0;
+
+            // the same choices as ShovelFirstStrategy, in the same order
+            if (!hasShovel && coins >= shovelPrice + neededPrice[terrain]) {
+                if (canBuy(items, coins, Item.SHOVEL.getBit(), shovelPrice)) {
+                    if ((items & Item.SWORD.getBit()) != 0) {
+                        // the shopkeeper picks what to say about the free item
+                        state = GameRandom.advance(state);
+                    } else {
+                        coins -= shovelPrice;
+                    }
+                    items |= Item.SHOVEL.getBit();
+                }
+            } else if (hasShovel && (town & SEARCHED) == 0) {
+                state = GameRandom.advance(state);
+                if (GameRandom.intAt(state, 2) == 1) {
+                    state = GameRandom.advance(state);
+                    coins += GameRandom.intAt(state, 20) + 1;
+                }
+                town |= SEARCHED;
+            } else if ((town & HUNTED) == 0) {
+                town |= HUNTED;
+                int hidden = town >>> TREASURE_SHIFT & 0x3;
+                if (hidden != DUST) {
+                    found |= 1 << hidden;
+                    if ((found & ALL_TREASURES) == ALL_TREASURES) {
+                        found |= DONE;
+                        won++;
+                    }
+                }
+            } else if ((items & needed) != 0) {
+                state = GameRandom.advance(state);
+                if (GameRandom.doubleAt(state) < difficulty.getBreakChance()) {
+                    items &= ~needed;
+                }
+                state = GameRandom.advance(state);
+                town = GameRandom.intAt(state, Terrain.count());
+                state = GameRandom.advance(state);
+                if (GameRandom.doubleAt(state) < difficulty.getToughness()) {
+                    town |= TOUGH;
+                }
+                state = GameRandom.advance(state);
+                town |= hiddenTreasure(GameRandom.doubleAt(state), difficulty.getTreasureChance()) << TREASURE_SHIFT;
+            } else if (coins >= neededPrice[terrain]) {
+                if (canBuy(items, coins, needed, neededPrice[terrain])) {
+                    if ((items & Item.SWORD.getBit()) != 0) {
+                        state = GameRandom.advance(state);
+                    } else {
+                        coins -= neededPrice[terrain];
+                    }
+                    items |= needed;
+                }
+            } else {
+                // look for trouble
+                boolean hasSword = (items & Item.SWORD.getBit()) != 0;
+                double noTroubleChance = difficulty.getNoTroubleChance((town & TOUGH) != 0);
+                state = GameRandom.advance(state);
+                if (GameRandom.doubleAt(state) <= noTroubleChance) {
+                    if (hasSword) {
+                        state = GameRandom.advance(state);
+                    }
+                    state = GameRandom.advance(state);
+                    int goldDiff = GameRandom.intAt(state, 10) + 1;
+                    state = GameRandom.advance(state);
+                    if (GameRandom.doubleAt(state) > noTroubleChance || hasSword) {
+                        coins += goldDiff;
+                    } else {
+                        coins = Math.max(0, coins - goldDiff);
+                        if (coins == 0) {
+                            found |= DONE;
+                            lost++;
+                        }
+                    }
+                }
+            }
+
+            random[i] = state;
+            gold[i] = coins;
+            kit[i] = (byte) items;
+            towns[i] = (byte) town;
+            treasures[i] = (byte) found;
+            if ((found & DONE) == 0) {
+                stillPlaying++;
+            }
+        }
+        if (won > 0) {
+            wins.add(won);
+            turnsToWin.add((long) won * turns);
+        }
+        if (lost > 0) {
+            losses.add(lost);
+        }
+        return stillPlaying;
+    }
+
+    /**
+     * The same checks as Hunter.buyItem for an item the shop has for sale.
+     */
+    private boolean canBuy(int items, int coins, int bit, int price) {
+        boolean hasSword = (items & Item.SWORD.getBit()) != 0;
+        return (coins >= price || hasSword) && (items & bit) == 0 && Integer.bitCount(items) < kitSize;
+    }
+
+    /**
+     * @param roll The town's treasure roll.
+     * @param treasureChance The difficulty's chance of a real treasure.
+     * @return 0 for a crown, 1 for a trophy, 2 for a gem, or DUST, with the same odds as Town.
+     */
+    private static int hiddenTreasure(double roll, double treasureChance) {
+        double third = treasureChance / 3;
+        if (roll < third) {
+            return 0;
+        } else if (roll < 2 * third) {
+            return 1;
+        } else if (roll < treasureChance) {
+            return 2;
+        }
+        return DUST;
+    }
+}
@@ -0,0 +1,117 @@
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The PriceCatalog class holds what every item costs to buy and what a shop pays to buy it back.<p>
+ * Prices only depend on the markdown and on whether swords are sold, so each catalog is worked out once,
+ * never changes, and is shared by every shop with the same settings. Looking up a price is an array read.
+ */
+
+public class PriceCatalog {
+    // constants
+    private static final int WATER_COST = 2;
+    private static final int ROPE_COST = 4;
+    private static final int MACHETE_COST = 6;
+    private static final int HORSE_COST = 12;
+    private static final int BOAT_COST = 20;
+    private static final int BOOT_COST = 10;
+    private static final int SHOVEL_COST = 8;
+    private static final int SWORD_COST = 0;
+
+    // static variables
+    private static final ConcurrentHashMap<String, PriceCatalog> CATALOGS = new ConcurrentHashMap<>();
+
+    // instance variables
+    private final int[] buyPrices;
+    private final int[] sellPrices;
+    private final boolean swordsForSale;
+    private final String inventory;
+
+    /**
+     * Works out every price for one markdown.
+     *
+     * @param markdown Percentage of markdown for selling items in decimal format.
+     * @param swordsForSale Whether swords are on the shelves (samurai mode).
+     */
+    private PriceCatalog(double markdown, boolean swordsForSale) {
+        this.swordsForSale = swordsForSale;
+        buyPrices = new int[Item.count()];
+        buyPrices[Item.WATER.ordinal()] = WATER_COST;
+        buyPrices[Item.ROPE.ordinal()] = ROPE_COST;
+        buyPrices[Item.MACHETE.ordinal()] = MACHETE_COST;
+        buyPrices[Item.HORSE.ordinal()] = HORSE_COST;
+        buyPrices[Item.BOAT.ordinal()] = BOAT_COST;
+        buyPrices[Item.BOOTS.ordinal()] = BOOT_COST;
+        buyPrices[Item.SHOVEL.ordinal()] = SHOVEL_COST;
+        buyPrices[Item.SWORD.ordinal()] = SWORD_COST;
+
+        sellPrices = new int[Item.count()];
+        for (int i = 0; i < buyPrices.length; i++) {
+            sellPrices[i] = (int) (buyPrices[i] * markdown);
+        }
+
+        String str = Colors.PURPLE + "Water: " + Colors.RESET + WATER_COST + Colors.YELLOW + " gold\n" + Colors.RESET;
+        str += Colors.PURPLE + "Rope: " + Colors.RESET + ROPE_COST + Colors.YELLOW + " gold\n" + Colors.RESET;
+        str += Colors.PURPLE + "Machete: " + Colors.RESET + MACHETE_COST + Colors.YELLOW + " gold\n" + Colors.RESET;
+        str += Colors.PURPLE + "Horse: " + Colors.RESET + HORSE_COST + Colors.YELLOW + " gold\n" + Colors.RESET;
+        str += Colors.PURPLE + "Boat: " + Colors.RESET + BOAT_COST + Colors.YELLOW + " gold\n" + Colors.RESET;
+        str += Colors.PURPLE + "Boots: " + Colors.RESET + BOOT_COST + Colors.YELLOW + " gold\n" + Colors.RESET;
+        str += Colors.PURPLE + "Shovel: " + Colors.RESET + SHOVEL_COST + Colors.YELLOW + " gold\n" + Colors.RESET;
+        if (swordsForSale) {
+            str += Colors.PURPLE + "Sword: " + Colors.RESET + SWORD_COST + Colors.YELLOW + " gold\n" + Colors.RESET;
+        }
+        inventory = str;
+    }
+
+    /**
+     * Returns the shared catalog for these settings, working it out the first time it is asked for.
+     *
+     * @param markdown Percentage of markdown for selling items in decimal format.
+     * @param swordsForSale Whether swords are on the shelves (samurai mode).
+     * @return the catalog.
+     */
+    public static PriceCatalog of(double markdown, boolean swordsForSale) {
+        String key = markdown + "/" + swordsForSale;
+        return CATALOGS.computeIfAbsent(key, k -> new PriceCatalog(markdown, swordsForSale));
+    }
+
+    /**
+     * @param item The item in question.
+     * @return what the item costs to buy.
+     */
+    public int getBuyPrice(Item item) {
+        return buyPrices[item.ordinal()];
+    }
+
+    /**
+     * @param item The item in question.
+     * @return what a shop pays for the item, with the markdown applied.
+     */
+    public int getSellPrice(Item item) {
+        return sellPrices[item.ordinal()];
+    }
+
+    /**
+     * @param item The item in question.
+     * @return true if the shop has the item on its shelves.
+     */
+    public boolean isForSale(Item item) {
+        if (item == Item.SWORD) {
+            return swordsForSale;
+        }
+        return buyPrices[item.ordinal()] != 0;
+    }
+
+    /**
+     * @return true if swords are on the shelves.
+     */
+    public boolean isSwordsForSale() {
+        return swordsForSale;
+    }
+
+    /**
+     * @return the printable list of items for sale and their prices.
+     */
+    public String getInventory() {
+        return inventory;
+    }
+}
@@ -0,0 +1,225 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The SharedTown class is a town that many hunters can be in at once, each playing on their own thread.<p>
+ * A Town has one hunter and one set of hunted and dug flags; here every hunter gets their own, so one player digging
+ * doesn't stop another. What the town has in common is its terrain, its toughness and its one hidden treasure,
+ * which goes to the first hunter to find it and to nobody else. <p>
+ * Nothing in the town is locked as a whole. Each hunter's flags and news live in a ConcurrentHashMap, which only
+ * ever contends on the one bin a hunter hashes to, and the treasure is claimed with a single compare-and-set, so
+ * hundreds of hunters acting in the same town only meet each other at the moment the treasure is won. <p>
+ * Every hunter rolls with their own game's GameRandom, since a GameRandom can't be shared between threads, and
+ * plays by the same TownRules as in a Town.
+ * SharedTownStress checks that the treasure is never awarded twice.
+ */
+
+public class SharedTown {
+    // constants
+    private static final int HUNTED = 1;
+    private static final int SEARCHED = 2;
+    private static final int GAME_OVER = 4;
+
+    // instance variables
+    private final DifficultyProfile difficulty;
+    private final Terrain terrain;
+    private final boolean toughTown;
+    private final String treasure;
+    private final AtomicReference<Hunter> treasureFinder;
+    private final ConcurrentHashMap<Hunter, Visitor> visitors;
+
+    /**
+     * @param difficulty The difficulty of the games played in this town.
+     * @param random Rolls the town's terrain, toughness and treasure, in the same order as Town.
+     */
+    public SharedTown(DifficultyProfile difficulty, GameRandom random) {
+        this.difficulty = difficulty;
+        terrain = TownRules.rollTerrain(random);
+        toughTown = TownRules.rollToughTown(difficulty, random);
+        treasure = TownRules.rollTreasure(difficulty, random);
+        treasureFinder = new AtomicReference<>();
+        visitors = new ConcurrentHashMap<>();
+    }
+
+    public Terrain getTerrain() {
+        return terrain;
+    }
+
+    public boolean isToughTown() {
+        return toughTown;
+    }
+
+    public String getTreasure() {
+        return treasure;
+    }
+
+    /**
+     * @return the hunter who found the town's treasure, or null if nobody has yet.
+     */
+    public Hunter getTreasureFinder() {
+        return treasureFinder.get();
+    }
+
+    /**
+     * @return how many hunters are in town.
+     */
+    public int getHunterCount() {
+        return visitors.size();
+    }
+
+    public boolean isHere(Hunter hunter) {
+        return visitors.containsKey(hunter);
+    }
+
+    public boolean isTownHunted(Hunter hunter) {
+        return visitor(hunter).has(HUNTED);
+    }
+
+    public boolean isTownSearched(Hunter hunter) {
+        return visitor(hunter).has(SEARCHED);
+    }
+
+    /**
+     * @return true if something that happened to the hunter in this town ended their game.
+     */
+    public boolean isGameOver(Hunter hunter) {
+        return visitor(hunter).has(GAME_OVER);
+    }
+
+    /**
+     * Hands back what has happened to the hunter since they last asked, and clears it.
+     *
+     * @param hunter The hunter.
+     * @return the hunter's latest news.
+     */
+    public String takeLatestNews(Hunter hunter) {
+        Visitor visitor = visitor(hunter);
+        String news = visitor.news;
+        visitor.news = "";
+        return news;
+    }
+
+    /**
+     * Lets a hunter into town. A hunter who is already here is just welcomed again.
+     *
+     * @param hunter The arriving Hunter.
+     */
+    public void hunterArrives(Hunter hunter) {
+        Visitor visitor = visitors.computeIfAbsent(hunter, h -> new Visitor());
+        visitor.news = "Welcome to town, " + hunter.getHunterName() + ".";
+        if (toughTown) {
+            visitor.news += "\nIt's pretty rough around here, so watch yourself.";
+        } else {
+            visitor.news += "\nWe're just a sleepy little town with mild mannered folk.";
+        }
+    }
+
+    /**
+     * Handles a hunter leaving town; a hunter who leaves forgets what they did here.
+     *
+     * @param hunter The hunter leaving.
+     * @param random The hunter's game's random rolls.
+     * @return true if the hunter was able to leave town.
+     */
+    public boolean leaveTown(Hunter hunter, GameRandom random) {
+        Visitor visitor = visitor(hunter);
+        if (!terrain.canCrossTerrain(hunter)) {
+            visitor.news = TownRules.cannotLeave(hunter, terrain);
+            return false;
+        }
+        visitor.news = TownRules.crossTerrain(hunter, terrain, difficulty, random).news;
+        visitors.remove(hunter);
+        return true;
+    }
+
+    /**
+     * Gives the hunter a chance to fight for some gold, by the same rules as Town.lookForTrouble().
+     *
+     * @param hunter The hunter looking for a fight.
+     * @param random The hunter's game's random rolls.
+     */
+    public void lookForTrouble(Hunter hunter, GameRandom random) {
+        Visitor visitor = visitor(hunter);
+        TownRules.Outcome outcome = TownRules.lookForTrouble(hunter, difficulty, toughTown, random);
+        visitor.news = outcome.news;
+        if (outcome.ending != null) {
+            visitor.set(GAME_OVER);
+        }
+    }
+
+    /**
+     * Lets the hunter dig for gold, once.
+     *
+     * @param hunter The hunter digging.
+     * @param random The hunter's game's random rolls.
+     */
+    public void dig(Hunter hunter, GameRandom random) {
+        Visitor visitor = visitor(hunter);
+        if (!hunter.hasItemInKit(Item.SHOVEL)) {
+            visitor.news = "You can't dig for gold without a shovel";
+            return;
+        }
+        if (!visitor.set(SEARCHED)) {
+            visitor.news = "Sorry, you already dug here.";
+            return;
+        }
+        visitor.news = TownRules.dig(hunter, random).news;
+    }
+
+    /**
+     * Lets the hunter hunt for the town's treasure, once. If several hunters find it at the same moment, exactly one
+     * of them gets it.
+     *
+     * @param hunter The hunter hunting.
+     * @return true if this hunter got the town's treasure.
+     */
+    public boolean hunt(Hunter hunter) {
+        Visitor visitor = visitor(hunter);
+        if (!visitor.set(HUNTED)) {
+            visitor.news = "You have already searched this town!";
+            return false;
+        }
+        // the one compare-and-set that decides who gets the treasure
+        TownRules.Outcome outcome = TownRules.hunt(hunter, treasure, () -> treasureFinder.compareAndSet(null, hunter));
+        if (outcome == null) {
+            visitor.news = "Someone got to the " + treasure + " before you; there's only an empty hole.";
+            return false;
+        }
+        visitor.news = outcome.news;
+        if (outcome.ending != null) {
+            visitor.set(GAME_OVER);
+        }
+        return outcome.event == GameEvent.Type.TREASURE_FOUND;
+    }
+
+    /**
+     * @throws IllegalStateException if the hunter isn't in town.
+     */
+    private Visitor visitor(Hunter hunter) {
+        Visitor visitor = visitors.get(hunter);
+        if (visitor == null) {
+            throw new IllegalStateException(hunter.getHunterName() + " isn't in this town");
+        }
+        return visitor;
+    }
+
+    /**
+     * One hunter's part of the town: their flags and their news.
+     */
+    private static class Visitor {
+        private final AtomicInteger flags = new AtomicInteger();
+        private volatile String news = "";
+
+        private boolean has(int flag) {
+            return (flags.get() & flag) != 0;
+        }
+
+        /**
+         * @return true if the flag wasn't already set.
+         */
+        private boolean set(int flag) {
+            return (flags.getAndUpdate(f -> f | flag) & flag) == 0;
+        }
+    }
+}
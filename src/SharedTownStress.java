@@ -0,0 +1,165 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The SharedTownStress class checks that a SharedTown never gives its treasure to more than one hunter.<p>
+ * For each town, a crowd of brand new hunters (none of whom own a treasure yet) is split between worker threads.
+ * The workers are held at a starting gate and all let go at once, and every hunter arrives, looks for trouble, digs
+ * and hunts as fast as they can, so many of them go for the treasure at the same moment. Afterwards exactly one
+ * hunter must hold the treasure (none in a town of dust), it must be the town's recorded finder, and exactly one
+ * call to hunt() must have said it won. <p>
+ * Usage: java SharedTownStress [towns] [hunters per town] [threads] [seed]
+ */
+
+public class SharedTownStress {
+    // instance variables
+    private int towns;
+    private int huntersPerTown;
+    private int threads;
+    private long seed;
+    private int failures;
+    private int treasureTowns;
+
+    /**
+     * @param towns How many towns to fight over.
+     * @param huntersPerTown How many hunters go into each town.
+     * @param threads How many threads the hunters are split between.
+     * @param seed The seed for the towns and every hunter's rolls.
+     */
+    public SharedTownStress(int towns, int huntersPerTown, int threads, long seed) {
+        this.towns = towns;
+        this.huntersPerTown = huntersPerTown;
+        this.threads = threads;
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int towns = 2_000;
+        int huntersPerTown = 256;
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        long seed = 42;
+        if (args.length > 0) {
+            towns = Integer.parseInt(args[0]);
+        }
+        if (args.length > 1) {
+            huntersPerTown = Integer.parseInt(args[1]);
+        }
+        if (args.length > 2) {
+            threads = Integer.parseInt(args[2]);
+        }
+        if (args.length > 3) {
+            seed = Long.parseLong(args[3]);
+        }
+
+        SharedTownStress test = new SharedTownStress(towns, huntersPerTown, threads, seed);
+        long start = System.nanoTime();
+        test.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println("Sent " + huntersPerTown + " hunters on " + threads + " threads into each of " + towns
+                + " towns (" + test.treasureTowns + " with a treasure) on "
+                + Runtime.getRuntime().availableProcessors() + " cores in " + String.format("%.2f", seconds) + "s");
+        if (test.failures > 0) {
+            System.out.println("FAILED: " + test.failures + " towns gave out their treasure wrongly");
+            System.exit(1);
+        }
+        System.out.println("Passed: no treasure was ever awarded twice");
+    }
+
+    /**
+     * Plays every town and checks each one.
+     *
+     * @return true if every town gave its treasure to exactly one hunter.
+     * @throws InterruptedException if the test is interrupted.
+     */
+    public boolean run() throws InterruptedException {
+        failures = 0;
+        treasureTowns = 0;
+        try (ExecutorService workers = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < towns; t++) {
+                if (!playTown(t, workers)) {
+                    failures++;
+                }
+            }
+        }
+        return failures == 0;
+    }
+
+    public int getFailures() {
+        return failures;
+    }
+
+    /**
+     * Sends a crowd of hunters into one town at once, then checks who got the treasure.
+     *
+     * @param townNumber Which town, for its seed.
+     * @param workers The threads to play the hunters on.
+     * @return true if the treasure went to exactly the right number of hunters.
+     * @throws InterruptedException if the test is interrupted.
+     */
+    private boolean playTown(int townNumber, ExecutorService workers) throws InterruptedException {
+        long townSeed = BatchSimulator.gameSeed(seed, townNumber);
+        SharedTown town = new SharedTown(DifficultyProfile.NORMAL, new GameRandom(townSeed));
+        Hunter[] hunters = new Hunter[huntersPerTown];
+        for (int h = 0; h < huntersPerTown; h++) {
+            // everyone has a shovel, so the digging runs alongside the hunting
+            hunters[h] = new Hunter("hunter" + h, DifficultyProfile.NORMAL, DifficultyProfile.NORMAL.getStartingGold(),
+                    Item.SHOVEL.getBit(), new String[3]);
+        }
+
+        CountDownLatch gate = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        AtomicInteger wins = new AtomicInteger();
+        for (int w = 0; w < threads; w++) {
+            int worker = w;
+            workers.execute(() -> {
+                try {
+                    gate.await();
+                    for (int h = worker; h < huntersPerTown; h += threads) {
+                        Hunter hunter = hunters[h];
+                        GameRandom random = new GameRandom(GameRandom.mix64(townSeed + h));
+                        town.hunterArrives(hunter);
+                        town.lookForTrouble(hunter, random);
+                        town.dig(hunter, random);
+                        if (town.hunt(hunter)) {
+                            wins.incrementAndGet();
+                        }
+                        // hunting twice must never win twice
+                        if (town.hunt(hunter)) {
+                            wins.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        gate.countDown();
+        done.await();
+
+        int expected = 1;
+        if (town.getTreasure().equals("Dust")) {
+            expected = 0;
+        } else {
+            treasureTowns++;
+        }
+        int holders = 0;
+        Hunter holder = null;
+        for (Hunter hunter : hunters) {
+            if (hunter.hasItemInTreasures(town.getTreasure())) {
+                holders++;
+                holder = hunter;
+            }
+        }
+        boolean passed = holders == expected && wins.get() == expected && town.getTreasureFinder() == holder
+                && town.getHunterCount() == huntersPerTown;
+        if (!passed) {
+            System.out.println("Town " + townNumber + " (" + town.getTreasure() + "): " + holders + " holders, "
+                    + wins.get() + " winning hunts, " + town.getHunterCount() + " hunters in town");
+        }
+        return passed;
+    }
+}
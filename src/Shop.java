@@ -1,87 +1,151 @@
-import java.util.Scanner;
-
 /**
  * The Shop class controls the cost of the items in the Treasure Hunt game. <p>
  * The Shop class also acts as a go between for the Hunter's buyItem() method. <p>
+ * The prices themselves live in a shared PriceCatalog, and one Shop serves every town in a game. <p>
  * This code has been adapted from Ivan Turner's original program -- thank you Mr. Turner!
  */
 
 public class Shop {
-    // constants
-    private static final int WATER_COST = 2;
-    private static final int ROPE_COST = 4;
-    private static final int MACHETE_COST = 6;
-    private static final int HORSE_COST = 12;
-    private static final int BOAT_COST = 20;
-    private static final int BOOT_COST = 10;
-    private static final int SHOVEL_COST = 8;
-    private static final int SWORD_COST = 0;
-
-
-    // static variables
-    private static final Scanner SCANNER = new Scanner(System.in);
-
     // instance variables
-    private double markdown;
+    private PriceCatalog prices;
+    private GameRandom random;
     private Hunter customer;
+    private CommandJournal journal;
+    private GameListener listener;
 
     /**
-     * The Shop constructor takes in a markdown value and leaves customer null until one enters the shop.
+     * The Shop constructor takes in the game's difficulty and leaves customer null until one enters the shop.
      *
-     * @param markdown Percentage of markdown for selling items in decimal format.
+     * @param difficulty The difficulty of the game, which sets the markdown and whether swords are sold.
+     * @param random The game's source of random rolls.
      */
-    public Shop(double markdown) {
-        this.markdown = markdown;
+    public Shop(DifficultyProfile difficulty, GameRandom random) {
+        prices = difficulty.getPrices();
+        this.random = random;
         customer = null;
+        journal = null;
+        listener = null;
         // customer is set in the enter method
 
     }
 
+    /**
+     * Starts recording what the player answers in the shop; null stops recording.
+     *
+     * @param journal The journal to record to.
+     */
+    public void setJournal(CommandJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * @param listener Where the shop reports what is bought and sold, or null to not report.
+     */
+    public void setListener(GameListener listener) {
+        this.listener = listener;
+    }
+
     /**
      * Method for entering the shop.
      *
      * @param hunter the Hunter entering the shop
      * @param buyOrSell String that determines if hunter is "B"uying or "S"elling
+     * @param console Where the shopkeeper talks to the player.
      * @return a String to be used for printing in the latest news
      */
-    public String enter(Hunter hunter, String buyOrSell) {
+    public String enter(Hunter hunter, String buyOrSell, GameConsole console) {
         customer = hunter;
         if (buyOrSell.equals("b")) {
-            System.out.println("Welcome to the shop! We have the finest wares in town.");
-            System.out.println("Currently we have the following items:");
-            System.out.println(inventory());
-            System.out.print("What're you lookin' to buy? ");
-            String item = SCANNER.nextLine().toLowerCase();
+            console.println("Welcome to the shop! We have the finest wares in town.");
+            console.println("Currently we have the following items:");
+            console.println(inventory());
+            console.print("What're you lookin' to buy? ");
+            String item = console.readWord();
             int cost = checkMarketPrice(item, true);
-            if (cost == 0 && (!TreasureHunter.returnDifficulty().equals("samurai")&&item.equals("sword"))) {
-                System.out.println("We ain't got none of those.");
-            } else if (!item.equals("sword")&&cost==0) {
-                System.out.println("We ain't got none of those.");
+            boolean confirmed = false;
+            if (!isForSale(item)) {
+                console.println("We ain't got none of those.");
             } else {
-                System.out.print("It'll cost you " + cost + " gold. Buy it (y/n)? ");
-                String option = SCANNER.nextLine().toLowerCase();
-                if (option.equals("y")) {
-                    buyItem(item);
+                console.print("It'll cost you " + cost + " gold. Buy it (y/n)? ");
+                String option = console.readWord();
+                confirmed = option.equals("y");
+                if (confirmed) {
+                    console.println(buyItem(item));
                 }
             }
+            if (journal != null) {
+                journal.recordShop(buyOrSell, item, confirmed);
+            }
         } else {
-            System.out.println("What're you lookin' to sell? ");
-            System.out.print("You currently have the following items: " + customer.getInventory());
-            String item = SCANNER.nextLine().toLowerCase();
+            console.println("What're you lookin' to sell? ");
+            console.print("You currently have the following items: " + customer.getInventory());
+            String item = console.readWord();
             int cost = checkMarketPrice(item, false);
-            if (cost == 0&&!item.equals("sword")&&!TreasureHunter.returnDifficulty().equals("samurai")) {
-                System.out.println("We don't want none of those.");
+            boolean confirmed = false;
+            if (!isWanted(item)) {
+                console.println("We don't want none of those.");
             } else {
-                System.out.print("It'll get you " + cost + Colors.YELLOW + " gold. " + Colors.RESET + "Sell it (y/n)? ");
-                String option = SCANNER.nextLine().toLowerCase();
-                if (option.equals("y")) {
-                    sellItem(item);
+                console.print("It'll get you " + cost + Colors.YELLOW + " gold. " + Colors.RESET + "Sell it (y/n)? ");
+                String option = console.readWord();
+                confirmed = option.equals("y");
+                if (confirmed) {
+                    console.println(sellItem(item));
                 }
             }
+            if (journal != null) {
+                journal.recordShop(buyOrSell, item, confirmed);
+            }
         }
         return "You left the shop";
     }
 
+    /**
+     * Buys an item for a hunter without asking any questions; used when the game is played without a console.
+     *
+     * @param hunter the Hunter doing the buying
+     * @param item The item being bought.
+     * @return what the shopkeeper says about the purchase.
+     */
+    public String buy(Hunter hunter, String item) {
+        customer = hunter;
+        if (!isForSale(item)) {
+            return "We ain't got none of those.";
+        }
+        return buyItem(item);
+    }
+
+    /**
+     * Sells an item for a hunter without asking any questions; used when the game is played without a console.
+     *
+     * @param hunter the Hunter doing the selling
+     * @param item The item being sold.
+     * @return what the shopkeeper says about the sale.
+     */
+    public String sell(Hunter hunter, String item) {
+        customer = hunter;
+        if (!isWanted(item)) {
+            return "We don't want none of those.";
+        }
+        return sellItem(item);
+    }
+
+    /**
+     * @param item The item in question.
+     * @return true if this shop has the item on its shelves.
+     */
+    public boolean isForSale(String item) {
+        Item shopItem = Item.fromName(item);
+        return shopItem != null && prices.isForSale(shopItem);
+    }
+
+    /**
+     * @param item The item in question.
+     * @return true if this shop will make an offer for the item.
+     */
+    public boolean isWanted(String item) {
+        return getBuyBackCost(item) != 0 || item.equals("sword") || prices.isSwordsForSale();
+    }
+
     /**
      * A method that returns a string showing the items available in the shop
      * (all shops sell the same items).
@@ -89,30 +153,41 @@ public class Shop {
      * @return the string representing the shop's items available for purchase and their prices.
      */
     public String inventory() {
-        String str = Colors.PURPLE + "Water: " + Colors.RESET + WATER_COST + Colors.YELLOW + " gold\n" + Colors.RESET;
-        str += Colors.PURPLE + "Rope: " + Colors.RESET + ROPE_COST + Colors.YELLOW + " gold\n" + Colors.RESET;
-        str += Colors.PURPLE + "Machete: " + Colors.RESET + MACHETE_COST + Colors.YELLOW + " gold\n" + Colors.RESET;
-        str += Colors.PURPLE + "Horse: " + Colors.RESET + HORSE_COST + Colors.YELLOW + " gold\n" + Colors.RESET;
-        str += Colors.PURPLE + "Boat: " + Colors.RESET + BOAT_COST + Colors.YELLOW + " gold\n" + Colors.RESET;
-        str += Colors.PURPLE + "Boots: " + Colors.RESET + BOOT_COST + Colors.YELLOW + " gold\n" + Colors.RESET;
-        str += Colors.PURPLE + "Shovel: " + Colors.RESET + SHOVEL_COST + Colors.YELLOW + " gold\n" + Colors.RESET;
-        if (TreasureHunter.returnDifficulty().equals("samurai")) {
-            str += Colors.PURPLE + "Sword: " + Colors.RESET + SWORD_COST + Colors.YELLOW + " gold\n" + Colors.RESET;
-        }
-        return str;
+        return prices.getInventory();
     }
 
     /**
      * A method that lets the customer (a Hunter) buy an item.
      *
      * @param item The item being bought.
+     * @return what the shopkeeper says about the purchase.
      */
-    public void buyItem(String item) {
+    public String buyItem(String item) {
+        FlightEvents.Purchase event = new FlightEvents.Purchase();
         int costOfItem = checkMarketPrice(item, true);
-        if (customer.buyItem(item, costOfItem)) {
-            System.out.println("Ye' got yerself a " + Colors.PURPLE + item + Colors.RESET+ ". Come again soon.");
+        boolean free = customer.hasItemInKit(Item.SWORD);
+        boolean bought = customer.buyItem(item, costOfItem);
+        if (event.shouldCommit()) {
+            event.item = item;
+            event.price = costOfItem;
+            event.bought = bought;
+            event.free = free;
+            event.goldAfter = customer.getGold();
+            event.commit();
+        }
+        if (bought) {
+            GameMetrics.INSTANCE.itemBought(Item.fromName(item), free ? 0 : costOfItem);
+            if (listener != null) {
+                listener.onEvent(new GameEvent(GameEvent.Type.ITEM_BOUGHT, free ? 0 : -costOfItem, customer.getGold(),
+                        Item.fromName(item), null));
+            }
+            String str = "";
+            if (free) {
+                str = freeItemMessage(item) + "\n";
+            }
+            return str + "Ye' got yerself a " + Colors.PURPLE + item + Colors.RESET+ ". Come again soon.";
         } else {
-            System.out.println("Hmm, either you don't have enough " + Colors.YELLOW + "gold " + Colors.RESET + "or you've already got one of those!");
+            return "Hmm, either you don't have enough " + Colors.YELLOW + "gold " + Colors.RESET + "or you've already got one of those!";
         }
     }
 
@@ -120,13 +195,45 @@ public class Shop {
      * A pathway method that lets the Hunter sell an item.
      *
      * @param item The item being sold.
+     * @return what the shopkeeper says about the sale.
      */
-    public void sellItem(String item) {
+    public String sellItem(String item) {
+        FlightEvents.Sale event = new FlightEvents.Sale();
         int buyBackPrice = checkMarketPrice(item, false);
-        if (customer.sellItem(item, buyBackPrice)) {
-            System.out.println("Pleasure doin' business with you.");
+        boolean sold = customer.sellItem(item, buyBackPrice);
+        if (event.shouldCommit()) {
+            event.item = item;
+            event.price = buyBackPrice;
+            event.sold = sold;
+            event.goldAfter = customer.getGold();
+            event.commit();
+        }
+        if (sold) {
+            GameMetrics.INSTANCE.itemSold(Item.fromName(item), buyBackPrice);
+            if (listener != null) {
+                listener.onEvent(new GameEvent(GameEvent.Type.ITEM_SOLD, buyBackPrice, customer.getGold(),
+                        Item.fromName(item), null));
+            }
+            return "Pleasure doin' business with you.";
+        } else {
+            return "Stop stringin' me along!";
+        }
+    }
+
+    /**
+     * Picks what the shopkeeper says when a hunter with a sword walks off with an item for free.
+     *
+     * @param item The item given away.
+     * @return the shopkeeper's message.
+     */
+    private String freeItemMessage(String item) {
+        int message = random.nextInt(3) + 1;
+        if (message == 1) {
+            return "The shopkeeper saw your sword and got scared... you got the " + Colors.PURPLE + item + Colors.RESET + " for free.";
+        } else if (message == 2) {
+            return "You gained the shopkeeper's respect after he saw that sharp thing... you got the " + Colors.PURPLE + item + Colors.RESET + " for free.";
         } else {
-            System.out.println("Stop stringin' me along!");
+            return "The shopkeeper was happy after seeing your hand... you got the " + Colors.PURPLE + item + Colors.RESET + " for free.";
         }
     }
 
@@ -147,46 +254,45 @@ public class Shop {
     }
 
     /**
-     * Checks the item entered against the costs listed in the static variables.
+     * Looks up the cost of the item entered in the price catalog.
      *
      * @param item The item being checked for cost.
      * @return The cost of the item or 0 if the item is not found.
      */
     public int getCostOfItem(String item) {
-        if (item.equals("water")) {
-            return WATER_COST;
-        } else if (item.equals("rope")) {
-            return ROPE_COST;
-        } else if (item.equals("machete")) {
-            return MACHETE_COST;
-        } else if (item.equals("horse")) {
-            return HORSE_COST;
-        } else if (item.equals("boat")) {
-            return BOAT_COST;
-        } else if (item.equals("boots")) {
-            return BOOT_COST;
-        } else if (item.equals("shovel")) {
-            return SHOVEL_COST;
-        } else if (item.equals("sword")) {
-            if (TreasureHunter.returnDifficulty().equals("samurai")) {
-                return SWORD_COST;
-            }
-            else {
-                return 0;
-            }
-        } else {
+        Item shopItem = Item.fromName(item);
+        if (shopItem == null) {
             return 0;
         }
+        return prices.getBuyPrice(shopItem);
     }
 
     /**
-     * Checks the cost of an item and applies the markdown.
+     * @param item The item being checked for cost.
+     * @return The cost of the item.
+     */
+    public int getCostOfItem(Item item) {
+        return prices.getBuyPrice(item);
+    }
+
+    /**
+     * Looks up what the shop pays for an item, with the markdown already applied.
      *
      * @param item The item being sold.
      * @return The sell price of the item.
      */
     public int getBuyBackCost(String item) {
-        int cost = (int) (getCostOfItem(item) * markdown);
-        return cost;
+        Item shopItem = Item.fromName(item);
+        if (shopItem == null) {
+            return 0;
+        }
+        return prices.getSellPrice(shopItem);
+    }
+
+    /**
+     * @return the price catalog this shop uses.
+     */
+    public PriceCatalog getPrices() {
+        return prices;
     }
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+/**
+ * The ShovelFirstStrategy class is the bot BatchSimulator has always used.<p>
+ * It buys a shovel when it can still afford the way out of town afterwards, digs and hunts in every town,
+ * buys what it needs to move on, and picks fights when it is short on gold.
+ */
+
+public class ShovelFirstStrategy implements Strategy {
+
+    @Override
+    public String getName() {
+        return "shovel first";
+    }
+
+    @Override
+    public Action nextAction(GameView view) {
+        Item neededItem = view.getTerrain().getNeededItem();
+        if (!view.hasItem(Item.SHOVEL) && view.getGold() >= view.getBuyPrice(Item.SHOVEL) + view.getBuyPrice(neededItem)) {
+            return Action.buy(Item.SHOVEL);
+        } else if (view.hasItem(Item.SHOVEL) && !view.isTownSearched()) {
+            return Action.DIG;
+        } else if (!view.isTownHunted()) {
+            return Action.HUNT;
+        } else if (view.hasItem(neededItem)) {
+            return Action.MOVE;
+        } else if (view.getGold() >= view.getBuyPrice(neededItem)) {
+            return Action.buy(neededItem);
+        }
+        return Action.LOOK_FOR_TROUBLE;
+    }
+}
@@ -0,0 +1,286 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The SnapshotStore class saves games to, and loads them from, a memory-mapped file.<p>
+ * Every saved game takes one fixed-size 128 byte slot, so one file can hold the checkpoints of thousands of sessions
+ * and saving or loading a game is a handful of reads and writes on memory that is already mapped. <p>
+ * Slot layout (all numbers big-endian):
+ * <pre>
+ *   0  int     magic "THSV"
+ *   4  byte    layout version
+ *   5  byte    mode length, then 8 bytes of mode ("e", "n", "h", "s" or "test")
+ *  14  byte    name length, then 64 bytes of UTF-8 name
+ *  80  long    seed
+ *  88  long    random state
+ *  96  int     gold
+ * 100  int     kit, one bit per Item
+ * 104  byte[3] treasures found, in order (0 = none, 1 = Crown, 2 = Trophy, 3 = Gem)
+ * 107  byte    town treasure (same codes, 4 = Dust)
+ * 108  byte    terrain number
+ * 109  byte    flags: 1 = tough town, 2 = hunted, 4 = searched, 8 = game over
+ * 112  int     turns played
+ * </pre>
+ * Version 1 slots had no turns, so a game picked up from one would be ranked on too few turns; they aren't loaded.
+ */
+
+public class SnapshotStore implements Closeable {
+    // constants
+    public static final int SLOT_SIZE = 128;
+    private static final int MAGIC = 0x54485356;
+    private static final byte VERSION = 2;
+    private static final int MODE_LENGTH = 8;
+    private static final int NAME_LENGTH = 64;
+    private static final String[] TREASURES = {null, "Crown", "Trophy", "Gem", "Dust"};
+    private static final int TOUGH = 1;
+    private static final int HUNTED = 2;
+    private static final int SEARCHED = 4;
+    private static final int GAME_OVER = 8;
+
+    // instance variables
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int slots;
+
+    /**
+     * Opens (or creates) a snapshot file with room for the given number of games.
+     *
+     * @param path The snapshot file.
+     * @param slots How many games the file holds.
+     * @throws IOException if the file can't be opened or mapped.
+     */
+    public SnapshotStore(Path path, int slots) throws IOException {
+        this.slots = slots;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) slots * SLOT_SIZE);
+    }
+
+    /**
+     * Wraps a file that has already been opened and mapped.
+     */
+    private SnapshotStore(FileChannel channel, MappedByteBuffer buffer, int slots) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.slots = slots;
+    }
+
+    /**
+     * Saves a game to its own single-slot file.
+     *
+     * @param path The snapshot file.
+     * @param game The game to save.
+     * @throws IOException if the file can't be written.
+     */
+    public static void save(Path path, GameEngine game) throws IOException {
+        try (SnapshotStore store = new SnapshotStore(path, 1)) {
+            store.save(0, game);
+            store.force();
+        }
+    }
+
+    /**
+     * Loads a game saved with save(Path, GameEngine). The file is only read, never changed.
+     *
+     * @param path The snapshot file.
+     * @return the game, or null if the file holds no saved game.
+     * @throws IOException if the file can't be read, is too short to hold a slot, or holds a damaged game.
+     */
+    public static GameEngine load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < SLOT_SIZE) {
+                throw new IOException(path + " is too short to hold a saved game");
+            }
+            // closing the channel is all closing the store would do
+            SnapshotStore store = new SnapshotStore(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, SLOT_SIZE), 1);
+            return store.load(0);
+        }
+    }
+
+    /**
+     * @return how many games the file holds.
+     */
+    public int getSlots() {
+        return slots;
+    }
+
+    /**
+     * Writes a game into a slot.
+     *
+     * @param slot Which slot to use.
+     * @param game The game to save.
+     * @throws IllegalArgumentException if the game is on a WorldMap, whose towns don't fit in a slot.
+     */
+    public void save(int slot, GameEngine game) {
+        if (game.getWorld() != null) {
+            throw new IllegalArgumentException("games on a map can't be saved yet");
+        }
+        int base = offset(slot);
+        Hunter hunter = game.getHunter();
+        Town town = game.getCurrentTown();
+
+        buffer.putInt(base, MAGIC);
+        buffer.put(base + 4, VERSION);
+        putString(base + 5, game.getDifficulty().getMode(), MODE_LENGTH);
+        putString(base + 14, hunter.getHunterName(), NAME_LENGTH);
+        buffer.putLong(base + 80, game.getSeed());
+        buffer.putLong(base + 88, game.getRandomState());
+        buffer.putInt(base + 96, hunter.getGold());
+        buffer.putInt(base + 100, hunter.getKit());
+        String[] treasures = hunter.getTreasures();
+        for (int i = 0; i < 3; i++) {
+            buffer.put(base + 104 + i, treasureCode(treasures[i]));
+        }
+        buffer.put(base + 107, treasureCode(town.getTreasure()));
+        buffer.put(base + 108, (byte) town.getTerrain().getIndex());
+        int flags = 0;
+        if (town.isToughTown()) {
+            flags |= TOUGH;
+        }
+        if (town.isTownHunted()) {
+            flags |= HUNTED;
+        }
+        if (town.getSearched()) {
+            flags |= SEARCHED;
+        }
+        if (game.isGameOver()) {
+            flags |= GAME_OVER;
+        }
+        buffer.put(base + 109, (byte) flags);
+        buffer.putInt(base + 112, game.getTurns());
+    }
+
+    /**
+     * Reads a game back out of a slot.
+     *
+     * @param slot Which slot to read.
+     * @return the game, or null if nothing has been saved in that slot.
+     * @throws IOException if the slot holds a game that is damaged, such as one cut off half-written.
+     */
+    public GameEngine load(int slot) throws IOException {
+        int base = offset(slot);
+        if (buffer.getInt(base) != MAGIC || buffer.get(base + 4) != VERSION) {
+            return null;
+        }
+        DifficultyProfile difficulty = DifficultyProfile.forMode(getString(base + 5, MODE_LENGTH));
+        if (difficulty == null) {
+            throw new IOException("saved game has an unknown mode");
+        }
+        String name = getString(base + 14, NAME_LENGTH);
+        int gold = buffer.getInt(base + 96);
+        int kit = buffer.getInt(base + 100);
+        if (gold < 0 || (kit & ~((1 << Item.count()) - 1)) != 0) {
+            throw new IOException("saved game has a damaged hunter");
+        }
+        String[] treasures = new String[3];
+        for (int i = 0; i < 3; i++) {
+            // Dust is never kept as a treasure
+            treasures[i] = TREASURES[checkedCode(buffer.get(base + 104 + i), TREASURES.length - 1)];
+        }
+        Hunter hunter = new Hunter(name, difficulty, gold, kit, treasures);
+        String townTreasure = TREASURES[checkedCode(buffer.get(base + 107), TREASURES.length)];
+        if (townTreasure == null) {
+            throw new IOException("saved game's town has no treasure");
+        }
+        Terrain terrain = Terrain.byIndex(checkedCode(buffer.get(base + 108), Terrain.count()));
+        int flags = buffer.get(base + 109);
+        return GameEngine.resume(difficulty, buffer.getLong(base + 80), buffer.getLong(base + 88), hunter,
+                terrain, (flags & TOUGH) != 0, townTreasure,
+                (flags & HUNTED) != 0, (flags & SEARCHED) != 0, (flags & GAME_OVER) != 0, buffer.getInt(base + 112));
+    }
+
+    /**
+     * Makes sure everything saved so far has reached the disk.
+     */
+    public void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * @param slot Which slot.
+     * @return where the slot starts in the file.
+     */
+    private int offset(int slot) {
+        if (slot < 0 || slot >= slots) {
+            throw new IndexOutOfBoundsException("No slot " + slot + " in a file of " + slots);
+        }
+        return slot * SLOT_SIZE;
+    }
+
+    /**
+     * Works out how much of a String's UTF-8 bytes fit in a field, without cutting a character in half.
+     *
+     * @param bytes The UTF-8 bytes.
+     * @param maxLength How many bytes the field holds.
+     * @return how many of the bytes to keep.
+     */
+    static int fittingLength(byte[] bytes, int maxLength) {
+        int length = Math.min(bytes.length, maxLength);
+        // a byte of the form 10xxxxxx carries on a character, so the cut has to come before that character
+        while (length > 0 && length < bytes.length && (bytes[length] & 0xc0) == 0x80) {
+            length--;
+        }
+        return length;
+    }
+
+    /**
+     * Writes a length byte followed by the String's UTF-8 bytes, cut short at a whole character if there are too
+     * many.
+     */
+    private void putString(int index, String value, int maxLength) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = fittingLength(bytes, maxLength);
+        buffer.put(index, (byte) length);
+        buffer.put(index + 1, bytes, 0, length);
+    }
+
+    /**
+     * Reads a String written by putString().
+     *
+     * @throws IOException if the length byte is more than the field holds.
+     */
+    private String getString(int index, int maxLength) throws IOException {
+        int length = buffer.get(index);
+        if (length < 0 || length > maxLength) {
+            throw new IOException("saved game has a damaged text field");
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(index + 1, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param code A code read from a slot.
+     * @param limit One more than the highest code allowed.
+     * @return the code.
+     * @throws IOException if the code is out of range.
+     */
+    private static int checkedCode(byte code, int limit) throws IOException {
+        if (code < 0 || code >= limit) {
+            throw new IOException("saved game has a damaged code: " + code);
+        }
+        return code;
+    }
+
+    /**
+     * @param treasure A treasure name, or null.
+     * @return its code in the file.
+     */
+    private static byte treasureCode(String treasure) {
+        for (byte i = 1; i < TREASURES.length; i++) {
+            if (TREASURES[i].equals(treasure)) {
+                return i;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,21 @@
+/**
+ * The Strategy interface is a bot that plays Treasure Hunter.<p>
+ * Each turn the bot is shown the game through a GameView and picks its next Action. It never gets hold of the
+ * hunter or the town themselves, so it can only change the game by the moves a player could make. <p>
+ * A tournament hands the same Strategy object to games on every core at once, so a strategy must not
+ * remember anything between calls; everything it needs should come from the view.
+ */
+
+public interface Strategy {
+
+    /**
+     * @return the name to show in results.
+     */
+    String getName();
+
+    /**
+     * @param view The game, as the player sees it.
+     * @return the move to make next.
+     */
+    Action nextAction(GameView view);
+}
@@ -1,22 +1,40 @@
 /**
- * The Terrain class is designed to represent the zones between the towns in the Treasure Hunter game.
+ * The Terrain class is designed to represent the zones between the towns in the Treasure Hunter game.<p>
+ * There are only six kinds of terrain and none of them ever change, so every town shares the same six objects.
  * This code has been adapted from Ivan Turner's original program -- thank you Mr. Turner!
  */
 
 public class Terrain {
+    // constants
+    public static final Terrain MOUNTAINS = new Terrain("Mountains", Item.ROPE, 0);
+    public static final Terrain OCEAN = new Terrain("Ocean", Item.BOAT, 1);
+    public static final Terrain PLAINS = new Terrain("Plains", Item.HORSE, 2);
+    public static final Terrain DESERT = new Terrain("Desert", Item.WATER, 3);
+    public static final Terrain JUNGLE = new Terrain("Jungle", Item.MACHETE, 4);
+    public static final Terrain MARSH = new Terrain("Marsh", Item.BOOTS, 5);
+
+    // static variables
+    private static final Terrain[] TERRAINS = {MOUNTAINS, OCEAN, PLAINS, DESERT, JUNGLE, MARSH};
+
     // instance variables
-    private String terrainName;
-    private String neededItem;
+    private final String terrainName;
+    private final Item neededItem;
+    private final int index;
+    private final String townDescription;
 
     /**
      * Sets the class member variables
      *
      * @param name The name of the zone.
      * @param item The item needed in order to cross the zone.
+     * @param index The terrain's number, from 0 to 5.
      */
-    public Terrain(String name, String item) {
+    private Terrain(String name, Item item, int index) {
         terrainName = name;
-        neededItem = item.toLowerCase();
+        neededItem = item;
+        this.index = index;
+        // the menu shows this every turn, so it is put together once
+        townDescription = "This nice little town is surrounded by " + name + ".";
     }
 
     // accessors
@@ -24,22 +42,45 @@ public class Terrain {
         return terrainName;
     }
 
-    public String getNeededItem() {
+    public Item getNeededItem() {
         return neededItem;
     }
 
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return the line the menu shows about the town's surroundings.
+     */
+    public String getTownDescription() {
+        return townDescription;
+    }
+
+    /**
+     * @param index A number from 0 to 5.
+     * @return the terrain with that number.
+     */
+    public static Terrain byIndex(int index) {
+        return TERRAINS[index];
+    }
+
+    /**
+     * @return how many kinds of terrain there are.
+     */
+    public static int count() {
+        return TERRAINS.length;
+    }
+
     /**
      * Guards against a hunter crossing the zone without the proper item.
-     * Searches the hunter's inventory for the proper item and determines whether the hunter can cross.
+     * Checks the hunter's kit for the proper item and determines whether the hunter can cross.
      *
      * @param hunter The Hunter object trying to cross the terrain.
      * @return true if the Hunter has the proper item.
      */
     public boolean canCrossTerrain(Hunter hunter) {
-        if (hunter.hasItemInKit(neededItem)) {
-            return true;
-        }
-        return false;
+        return hunter.hasItemInKit(neededItem);
     }
 
     /**
@@ -48,4 +89,4 @@ public class Terrain {
     public String infoString() {
         return "You are surrounded by " + Colors.CYAN + terrainName + Colors.RESET + " which needs a(n) " + neededItem + " to cross.";
     }
-}
\ No newline at end of file
+}
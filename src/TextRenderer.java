@@ -0,0 +1,51 @@
+import java.io.PrintStream;
+
+/**
+ * The TextRenderer class shows the game the way a person reads it, with or without colors.<p>
+ * Menu screens are drawn by a FrameRenderer in one write. GameEvents are ignored, since the game's sentences
+ * already say what happened.
+ */
+
+public class TextRenderer implements OutputRenderer {
+    // instance variables
+    private PrintStream out;
+    private boolean colors;
+    private FrameRenderer frames;
+
+    /**
+     * @param out Where the text is written.
+     * @param colors true for ansi colors, false for plain text.
+     */
+    public TextRenderer(PrintStream out, boolean colors) {
+        this.out = out;
+        this.colors = colors;
+        frames = new FrameRenderer(out, colors);
+    }
+
+    @Override
+    public void text(String text) {
+        if (colors) {
+            out.print(text);
+        } else {
+            out.print(Colors.strip(text));
+        }
+    }
+
+    @Override
+    public void frame(String news, Hunter hunter, Town town) {
+        frames.render(news, hunter, town);
+    }
+
+    @Override
+    public void onEvent(GameEvent event) {
+        // the text already tells the player
+    }
+
+    @Override
+    public String getStyle() {
+        if (colors) {
+            return "ansi";
+        }
+        return "plain";
+    }
+}
@@ -0,0 +1,171 @@
+import java.util.stream.LongStream;
+
+/**
+ * The Tournament class pits bots against each other over the same seeded games, using every core.<p>
+ * Every strategy plays game number i from the same seed, so they all face exactly the same towns and rolls for as
+ * long as they make the same moves. For each strategy it reports how often it wins, how many moves a win takes
+ * on average, and its average gold as the games go on (a finished game keeps counting with its final gold). <p>
+ * Usage: java Tournament [games] [mode] [seed]
+ */
+
+public class Tournament {
+    // constants
+    private static final int CURVE_STEP = 50;
+    private static final int CURVE_POINTS = BatchSimulator.MAX_TURNS / CURVE_STEP + 1;
+
+    // instance variables
+    private Strategy[] strategies;
+    private DifficultyProfile difficulty;
+
+    /**
+     * @param difficulty The difficulty every game is played at.
+     * @param strategies The bots taking part.
+     */
+    public Tournament(DifficultyProfile difficulty, Strategy... strategies) {
+        this.difficulty = difficulty;
+        this.strategies = strategies;
+    }
+
+    public static void main(String[] args) {
+        long games = 1_000_000;
+        String mode = "n";
+        long seed = 42;
+        if (args.length > 0) {
+            games = Long.parseLong(args[0]);
+        }
+        if (args.length > 1) {
+            mode = args[1];
+        }
+        if (args.length > 2) {
+            seed = Long.parseLong(args[2]);
+        }
+        DifficultyProfile difficulty = DifficultyProfile.forMode(mode);
+        if (difficulty == null) {
+            System.out.println("Unknown mode: " + mode);
+            return;
+        }
+
+        Tournament tournament = new Tournament(difficulty, new HuntAndMoveStrategy(), new ShovelFirstStrategy(),
+                new OptimalStrategy(difficulty));
+        long start = System.nanoTime();
+        Results results = tournament.play(games, seed);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println("Played " + games + " " + difficulty.getName() + " games per strategy on "
+                + Runtime.getRuntime().availableProcessors() + " cores in " + String.format("%.2f", seconds) + "s");
+        System.out.print(tournament.report(results, games));
+    }
+
+    /**
+     * Plays every game with every strategy.
+     *
+     * @param games How many games each strategy plays.
+     * @param seed The seed of the whole tournament.
+     * @return the totals for each strategy.
+     */
+    public Results play(long games, long seed) {
+        return LongStream.range(0, games).parallel().collect(() -> new Results(strategies.length),
+                (results, i) -> {
+                    long gameSeed = BatchSimulator.gameSeed(seed, i);
+                    for (int s = 0; s < strategies.length; s++) {
+                        playGame(s, gameSeed, results);
+                    }
+                },
+                Results::add);
+    }
+
+    /**
+     * Plays one game and adds it to the totals.
+     *
+     * @param s Which strategy plays.
+     * @param seed The seed of the game.
+     * @param results The totals to add to.
+     */
+    private void playGame(int s, long seed, Results results) {
+        GameEngine game = new GameEngine("bot", difficulty, seed);
+        GameView view = new GameView(game);
+        Strategy strategy = strategies[s];
+        long[] gold = results.gold[s];
+        gold[0] += view.getGold();
+        int point = 1;
+        while (!game.isGameOver() && game.getTurns() < BatchSimulator.MAX_TURNS) {
+            game.perform(strategy.nextAction(view));
+            game.takeLatestNews();
+            // shopping and moving both count as a turn, so the curve is read every CURVE_STEP moves
+            if (game.getTurns() == point * CURVE_STEP) {
+                gold[point] += view.getGold();
+                point++;
+            }
+        }
+        for (; point < CURVE_POINTS; point++) {
+            gold[point] += view.getGold();
+        }
+        if (game.isWon()) {
+            results.wins[s]++;
+            results.turnsToWin[s] += game.getTurns();
+        }
+    }
+
+    /**
+     * @param results The totals from play().
+     * @param games How many games each strategy played.
+     * @return a table of the results, one row per strategy.
+     */
+    public String report(Results results, long games) {
+        StringBuilder table = new StringBuilder();
+        table.append(String.format("%-16s %9s %12s%n", "Strategy", "Win rate", "Turns to win"));
+        for (int s = 0; s < strategies.length; s++) {
+            double meanTurns = 0;
+            if (results.wins[s] > 0) {
+                meanTurns = (double) results.turnsToWin[s] / results.wins[s];
+            }
+            table.append(String.format("%-16s %8.2f%% %12.1f%n", strategies[s].getName(),
+                    100.0 * results.wins[s] / games, meanTurns));
+        }
+        table.append(String.format("%nMean gold by turn%n%-16s", "Turn"));
+        for (int point = 0; point < CURVE_POINTS; point++) {
+            table.append(String.format(" %6d", point * CURVE_STEP));
+        }
+        table.append(String.format("%n"));
+        for (int s = 0; s < strategies.length; s++) {
+            table.append(String.format("%-16s", strategies[s].getName()));
+            for (int point = 0; point < CURVE_POINTS; point++) {
+                table.append(String.format(" %6.1f", (double) results.gold[s][point] / games));
+            }
+            table.append(String.format("%n"));
+        }
+        return table.toString();
+    }
+
+    /**
+     * Running totals for each strategy. Each core keeps its own, and they are added up at the end.
+     */
+    public static class Results {
+        private final long[] wins;
+        private final long[] turnsToWin;
+        private final long[][] gold;
+
+        private Results(int strategies) {
+            wins = new long[strategies];
+            turnsToWin = new long[strategies];
+            gold = new long[strategies][CURVE_POINTS];
+        }
+
+        private void add(Results other) {
+            for (int s = 0; s < wins.length; s++) {
+                wins[s] += other.wins[s];
+                turnsToWin[s] += other.turnsToWin[s];
+                for (int point = 0; point < CURVE_POINTS; point++) {
+                    gold[s][point] += other.gold[s][point];
+                }
+            }
+        }
+
+        public long getWins(int strategy) {
+            return wins[strategy];
+        }
+
+        public long getTurnsToWin(int strategy) {
+            return turnsToWin[strategy];
+        }
+    }
+}
@@ -15,25 +15,61 @@ public class Town {
     private String treasure;
     private boolean townHunted;
     private boolean townSearched;
+    private DifficultyProfile difficulty;
+    private GameRandom random;
+    private GameListener listener;
     /**
      * The Town Constructor takes in a shop and the surrounding terrain, but leaves the hunter as null until one arrives.
      *
      * @param shop The town's shoppe.
-     * @param toughness The surrounding terrain.
+     * @param difficulty The difficulty of the game this town belongs to; its toughness sets how likely a tough town is.
+     * @param random The game's source of random rolls.
      */
-    public Town(Shop shop, double toughness) {
+    public Town(Shop shop, DifficultyProfile difficulty, GameRandom random) {
         this.shop = shop;
-        this.terrain = getNewTerrain();
+        this.difficulty = difficulty;
+        this.random = random;
+        this.terrain = TownRules.rollTerrain(random);
 
         // the hunter gets set using the hunterArrives method, which
         // gets called from a client class
         hunter = null;
+        listener = null;
         treasure = null;
         printMessage = "";
         townSearched = false;
         townHunted = false;
-        // higher toughness = more likely to be a tough town
-        toughTown = (Math.random() < toughness);
+        gameOver = false;
+        toughTown = TownRules.rollToughTown(difficulty, random);
+        treasure = TownRules.rollTreasure(difficulty, random);
+    }
+
+    /**
+     * Rebuilds a town exactly as it was when a game was saved.
+     *
+     * @param shop The town's shoppe.
+     * @param difficulty The difficulty of the game this town belongs to.
+     * @param random The game's source of random rolls.
+     * @param terrain The surrounding terrain.
+     * @param toughTown Whether it is a tough town.
+     * @param treasure The treasure hidden in the town.
+     * @param townHunted Whether the hunter has already hunted here.
+     * @param townSearched Whether the hunter has already dug here.
+     */
+    public Town(Shop shop, DifficultyProfile difficulty, GameRandom random, Terrain terrain, boolean toughTown,
+                String treasure, boolean townHunted, boolean townSearched) {
+        this.shop = shop;
+        this.difficulty = difficulty;
+        this.random = random;
+        this.terrain = terrain;
+        this.toughTown = toughTown;
+        this.treasure = treasure;
+        this.townHunted = townHunted;
+        this.townSearched = townSearched;
+        hunter = null;
+        listener = null;
+        printMessage = "";
+        gameOver = false;
     }
 
     public Terrain getTerrain() {
@@ -44,6 +80,13 @@ public class Town {
         this.townSearched = townSearched;
     }
 
+    /**
+     * @param listener Where this town reports what happens in it, or null to not report.
+     */
+    public void setListener(GameListener listener) {
+        this.listener = listener;
+    }
+
     public String getLatestNews() {
         return printMessage;
     }
@@ -55,6 +98,21 @@ public class Town {
     public boolean getSearched() {
         return townSearched;
     }
+
+    public boolean isToughTown() {
+        return toughTown;
+    }
+
+    public String getTreasure() {
+        return treasure;
+    }
+
+    /**
+     * @return true if something that happened in this town ended the game.
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    }
     /**
      * Assigns an object to the Hunter in town.
      *
@@ -62,22 +120,23 @@ public class Town {
      */
     public void hunterArrives(Hunter hunter) {
         this.hunter = hunter;
-        double rnd = Math.random();
-        if (rnd < .25) {
-            treasure = "Crown";
-        } else if (rnd < .5) {
-            treasure = "Trophy";
-        } else if (rnd < .75) {
-            treasure = "Gem";
-        } else {
-            treasure = "Dust";
-        }
         printMessage = "Welcome to town, " + hunter.getHunterName() + ".";
         if (toughTown) {
             printMessage += "\nIt's pretty rough around here, so watch yourself.";
         } else {
             printMessage += "\nWe're just a sleepy little town with mild mannered folk.";
         }
+        report(GameEvent.Type.TOWN_ENTERED, 0, terrain.getNeededItem(), terrain.getTerrainName());
+    }
+
+    /**
+     * Puts a hunter back in town when a saved game is picked up again.
+     *
+     * @param hunter The returning Hunter.
+     */
+    public void hunterReturns(Hunter hunter) {
+        this.hunter = hunter;
+        printMessage = "Welcome back, " + hunter.getHunterName() + ".";
     }
 
     public boolean isTownHunted() {
@@ -94,28 +153,35 @@ public class Town {
      * @return true if the Hunter was able to leave town.
      */
     public boolean leaveTown() {
+        FlightEvents.LeaveTown event = new FlightEvents.LeaveTown();
         boolean canLeaveTown = terrain.canCrossTerrain(hunter);
+        boolean itemBroken = false;
         if (canLeaveTown) {
-            String item = terrain.getNeededItem();
-            printMessage = "You used your " + item + " to cross the " + terrain.getTerrainName() + ".";
-            if (checkItemBreak()) {
-                hunter.removeItemFromKit(item);
-                printMessage += "\nUnfortunately, you lost your " + item;
-            }
-            return true;
+            TownRules.Outcome outcome = TownRules.crossTerrain(hunter, terrain, difficulty, random);
+            printMessage = outcome.news;
+            report(outcome);
+            itemBroken = outcome.event != null;
+        } else {
+            printMessage = TownRules.cannotLeave(hunter, terrain);
         }
-
-        printMessage = "You can't leave town, " + hunter.getHunterName() + ". You don't have a " + terrain.getNeededItem() + ".";
-        return false;
+        if (event.shouldCommit()) {
+            event.terrain = terrain.getTerrainName();
+            event.item = terrain.getNeededItem().toString();
+            event.left = canLeaveTown;
+            event.itemBroken = itemBroken;
+            event.commit();
+        }
+        return canLeaveTown;
     }
 
     /**
      * Handles calling the enter method on shop whenever the user wants to access the shop.
      *
      * @param choice If the user wants to buy or sell items at the shop.
+     * @param console Where the shopkeeper talks to the player.
      */
-    public void enterShop(String choice) {
-        printMessage = shop.enter(hunter, choice);
+    public void enterShop(String choice, GameConsole console) {
+        printMessage = shop.enter(hunter, choice, console);
     }
 
     public Shop getShop() {
@@ -128,131 +194,79 @@ public class Town {
      * The tougher the town, the easier it is to find a fight, and the harder it is to win one.
      */
     public void lookForTrouble() {
-        double noTroubleChance;
-        if (toughTown) {
-            if (TreasureHunter.returnDifficulty().equals("easy")) {
-                noTroubleChance = 0.75;
-            } else if (TreasureHunter.returnDifficulty().equals("hard")) {
-                noTroubleChance = 0.6;
-            } else {
-                noTroubleChance = 0.66;
-            }
-        } else {
-            if (TreasureHunter.returnDifficulty().equals("easy")) {
-                noTroubleChance = 0.25;
-            } else if (TreasureHunter.returnDifficulty().equals("hard")) {
-                noTroubleChance = 0.4;
-            } else {
-                noTroubleChance = 0.33;
-            }
-        }
-        if (Math.random() > noTroubleChance) {
-            printMessage = "You couldn't find any trouble";
-        } else {
-            printMessage = Colors.RED + "You want trouble, stranger!  You got it!\nOof! Umph! Ow!\n" + Colors.RESET;
-            if (hunter.hasItemInKit("sword")) {
-                int message = (int) (Math.random() * 3) + 1;
-                if (message == 1) {
-                    printMessage += ("You unsheathe your sword... the brawler is intimidated. He gives you his " + Colors.YELLOW + "gold" + Colors.RESET);
-                }
-                else if (message == 2) {
-                    printMessage += ("The brawler thought this would be easy until he saw what you had... He gave you his" + Colors.YELLOW + " gold" + Colors.RESET + " out of fear");
-                }
-                else {
-                    printMessage += ("The brawler ended up giving you his" + Colors.YELLOW + " gold" + Colors.RESET + ". You really scared him away.");
-                }
-
-            }
-            int goldDiff = (int) (Math.random() * 10) + 1;
-            if (Math.random() > noTroubleChance || hunter.hasItemInKit("sword")) {
-                if (!hunter.hasItemInKit("sword"))
-                    printMessage += "Okay, stranger! You proved yer mettle. Here, take my gold.";
-                printMessage += "\nYou won the brawl and receive " + goldDiff + Colors.YELLOW + " gold." + Colors.RESET;
-                hunter.changeGold(goldDiff);
-            } else {
-                hunter.changeGold(-goldDiff);
-                printMessage += Colors.RED + "That'll teach you to go lookin' fer trouble in MY town! Now pay up!";
-                if (hunter.getGold()==0) {
-                    printMessage+="\nYou lost and couldn't afford to pay up..." + Colors.RESET;
-                    System.out.println(printMessage);
-                    System.out.println("\nGame Over!");
-                    TreasureHunter.gameOver();
-                } else {
-                    printMessage += Colors.RESET + "\nYou lost the brawl and pay " + goldDiff + Colors.YELLOW + " gold." + Colors.RESET;
-                }
-            }
+        FlightEvents.Trouble event = new FlightEvents.Trouble();
+        int goldBefore = hunter.getGold();
+        TownRules.Outcome outcome = TownRules.lookForTrouble(hunter, difficulty, toughTown, random);
+        printMessage = outcome.news;
+        report(outcome);
+        if (event.shouldCommit()) {
+            event.toughTown = toughTown;
+            event.brawlFound = outcome.event != GameEvent.Type.NO_TROUBLE;
+            event.brawlWon = outcome.event == GameEvent.Type.BRAWL_WON;
+            event.goldChange = hunter.getGold() - goldBefore;
+            event.gameLost = gameOver;
+            event.commit();
         }
     }
 
     public String infoString() {
-        return "This nice little town is surrounded by " + terrain.getTerrainName() + ".";
+        return terrain.getTownDescription();
     }
 
-    /**
-     * Determines the surrounding terrain for a town, and the item needed in order to cross that terrain.
-     *
-     * @return A Terrain object.
-     */
-    private Terrain getNewTerrain() {
-        double rnd = Math.random();
-        if (rnd < (1.0 / 6)) {
-            return new Terrain("Mountains", "Rope");
-        } else if (rnd < (2.0 / 6)) {
-            return new Terrain("Ocean", "Boat");
-        } else if (rnd < 0.5) {
-            return new Terrain("Plains", "Horse");
-        } else if (rnd < (4.0 / 6)) {
-            return new Terrain("Desert", "Water");
-        } else if (rnd < (5.0 / 6)){
-            return new Terrain("Jungle", "Machete");
-        } else {
-            return new Terrain("Marsh", "Boots");
+    public void dig() {
+        FlightEvents.Dig event = new FlightEvents.Dig();
+        TownRules.Outcome outcome = TownRules.dig(hunter, random);
+        printMessage += outcome.news;
+        if (outcome.event == GameEvent.Type.GOLD_DUG) {
+            townSearched = true;
+        }
+        report(outcome);
+        if (event.shouldCommit()) {
+            event.goldFound = outcome.goldDelta;
+            event.commit();
+        }
+    }
+
+    public void hunt() {
+        FlightEvents.Hunt event = new FlightEvents.Hunt();
+        // only one hunter is ever in a Town, so the treasure is always theirs to take
+        TownRules.Outcome outcome = TownRules.hunt(hunter, treasure, () -> true);
+        printMessage += outcome.news;
+        report(outcome);
+        if (event.shouldCommit()) {
+            event.treasure = treasure;
+            event.found = outcome.event == GameEvent.Type.TREASURE_FOUND;
+            event.gameWon = gameOver;
+            event.commit();
         }
     }
 
     /**
-     * Determines whether a used item has broken.
+     * Reports what came of something the hunter did, and ends the game if it ended.
      *
-     * @return true if the item broke.
+     * @param outcome What happened.
      */
-    private boolean checkItemBreak() {
-        double rand = Math.random();
-        if (TreasureHunter.returnDifficulty().equals("easy")) {
-            return false;
+    private void report(TownRules.Outcome outcome) {
+        if (outcome.event != null) {
+            report(outcome.event, outcome.goldDelta, outcome.item, outcome.detail);
         }
-        return (rand < 0.5);
-    }
-
-    public void dig() {
-        int successful = (int) (Math.random() * 2) + 1;
-        if (successful == 2) {
-            int amount = (int) (Math.random() * 20) + 1;
-            printMessage += ("You dug up " + amount + Colors.YELLOW + " gold!" + Colors.RESET);
-            hunter.changeGold(amount);
-            townSearched = true;
-        } else {
-            printMessage += ("You dug but only found dirt.");
+        if (outcome.ending != null) {
+            gameOver = true;
+            report(outcome.ending, 0, null, null);
         }
     }
 
-    public void hunt() {
-        if (treasure.equals("Dust")) {
-            printMessage += ("You dug up dust...");
-        } else {
-            if (!hunter.hasItemInTreasures(treasure)) {
-                printMessage += ("You got a " + treasure + "!");
-                int treasureIdx = hunter.emptyPositionInTreasures();
-                hunter.addTreasure(treasureIdx, treasure);
-                if (treasureIdx==hunter.getTreasures().length-1) {
-                    System.out.println("Congratulations, you have found the" + Colors.PURPLE + " last " + Colors.RESET + "of the " + Colors.YELLOW + "three treasures. " + Colors.GREEN + "You win!" + Colors.RESET);
-                    TreasureHunter.gameOver();
-                } else {
-                    //nothing
-                }
-            } else {
-                printMessage += ("\nYou found a " + treasure + "! However, you already own one of these..");
-            }
+    /**
+     * Tells the listener, if there is one, what just happened.
+     *
+     * @param type What happened.
+     * @param goldDelta How much gold it won or cost.
+     * @param item The item involved, or null.
+     * @param detail The treasure or terrain involved, or null.
+     */
+    private void report(GameEvent.Type type, int goldDelta, Item item, String detail) {
+        if (listener != null) {
+            listener.onEvent(new GameEvent(type, goldDelta, hunter.getGold(), item, detail));
         }
     }
-
-}
\ No newline at end of file
+}
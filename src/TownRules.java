@@ -0,0 +1,195 @@
+import java.util.function.BooleanSupplier;
+
+/**
+ * The TownRules class holds the rules for everything a hunter can do in a town: the dice it rolls, in what order,
+ * and what comes of them.<p>
+ * Town and SharedTown both play by these rules, so a brawl, a dig or a hunt rolls the same dice and pays the same
+ * gold in either one. Each rule changes the hunter's gold and kit, counts what happened in GameMetrics and hands
+ * back an Outcome; keeping track of who has dug or hunted where, and telling a listener, is left to the town. <p>
+ * The rolls are always made in the same order, so a game with a given seed plays out the same way every time.
+ */
+
+class TownRules {
+    private TownRules() {
+    }
+
+    /**
+     * @return One of the six shared Terrain objects.
+     */
+    static Terrain rollTerrain(GameRandom random) {
+        return Terrain.byIndex(random.nextInt(Terrain.count()));
+    }
+
+    /**
+     * @return true if the town is a tough one; higher toughness = more likely to be a tough town.
+     */
+    static boolean rollToughTown(DifficultyProfile difficulty, GameRandom random) {
+        return random.nextDouble() < difficulty.getToughness();
+    }
+
+    /**
+     * @return the treasure hidden in a town, or "Dust".
+     */
+    static String rollTreasure(DifficultyProfile difficulty, GameRandom random) {
+        double rnd = random.nextDouble();
+        // the three treasures share the treasure chance evenly; the rest of the time it's dust
+        double third = difficulty.getTreasureChance() / 3;
+        if (rnd < third) {
+            return "Crown";
+        } else if (rnd < 2 * third) {
+            return "Trophy";
+        } else if (rnd < difficulty.getTreasureChance()) {
+            return "Gem";
+        } else {
+            return "Dust";
+        }
+    }
+
+    /**
+     * @return what a town says to a hunter who can't cross its terrain.
+     */
+    static String cannotLeave(Hunter hunter, Terrain terrain) {
+        return "You can't leave town, " + hunter.getHunterName() + ". You don't have a " + terrain.getNeededItem() + ".";
+    }
+
+    /**
+     * Takes a hunter who can cross the terrain out of town; the item they use might break on the way.
+     *
+     * @return what happened; its event is ITEM_BROKEN if the item broke, and null if it didn't.
+     */
+    static Outcome crossTerrain(Hunter hunter, Terrain terrain, DifficultyProfile difficulty, GameRandom random) {
+        Item item = terrain.getNeededItem();
+        String news = "You used your " + item + " to cross the " + terrain.getTerrainName() + ".";
+        if (random.nextDouble() < difficulty.getBreakChance()) {
+            hunter.removeItemFromKit(item);
+            GameMetrics.INSTANCE.itemBroken(item);
+            return new Outcome(news + "\nUnfortunately, you lost your " + item, GameEvent.Type.ITEM_BROKEN, 0, item,
+                    null, null);
+        }
+        return new Outcome(news, null, 0, null, null, null);
+    }
+
+    /**
+     * Gives the hunter a chance to fight for some gold.<p>
+     * The chances of finding a fight and winning the gold are based on the toughness of the town.<p>
+     * The tougher the town, the easier it is to find a fight, and the harder it is to win one.
+     *
+     * @return what happened; it ends in GAME_LOST if the hunter lost all their gold.
+     */
+    static Outcome lookForTrouble(Hunter hunter, DifficultyProfile difficulty, boolean toughTown, GameRandom random) {
+        double noTroubleChance = difficulty.getNoTroubleChance(toughTown);
+        if (random.nextDouble() > noTroubleChance) {
+            GameMetrics.INSTANCE.noTrouble();
+            return new Outcome("You couldn't find any trouble", GameEvent.Type.NO_TROUBLE, 0, null, null, null);
+        }
+        boolean hasSword = hunter.hasItemInKit(Item.SWORD);
+        String news = Colors.RED + "You want trouble, stranger!  You got it!\nOof! Umph! Ow!\n" + Colors.RESET;
+        if (hasSword) {
+            int message = random.nextInt(3) + 1;
+            if (message == 1) {
+                news += ("You unsheathe your sword... the brawler is intimidated. He gives you his " + Colors.YELLOW + "gold" + Colors.RESET);
+            }
+            else if (message == 2) {
+                news += ("The brawler thought this would be easy until he saw what you had... He gave you his" + Colors.YELLOW + " gold" + Colors.RESET + " out of fear");
+            }
+            else {
+                news += ("The brawler ended up giving you his" + Colors.YELLOW + " gold" + Colors.RESET + ". You really scared him away.");
+            }
+        }
+        int goldDiff = random.nextInt(10) + 1;
+        if (random.nextDouble() > noTroubleChance || hasSword) {
+            if (!hasSword)
+                news += "Okay, stranger! You proved yer mettle. Here, take my gold.";
+            news += "\nYou won the brawl and receive " + goldDiff + Colors.YELLOW + " gold." + Colors.RESET;
+            hunter.changeGold(goldDiff);
+            GameMetrics.INSTANCE.brawlWon(goldDiff);
+            return new Outcome(news, GameEvent.Type.BRAWL_WON, goldDiff, null, null, null);
+        }
+        int goldBefore = hunter.getGold();
+        hunter.changeGold(-goldDiff);
+        boolean broke = hunter.getGold() == 0;
+        GameMetrics.INSTANCE.brawlLost(goldBefore - hunter.getGold(), broke);
+        news += Colors.RED + "That'll teach you to go lookin' fer trouble in MY town! Now pay up!";
+        if (broke) {
+            news += "\nYou lost and couldn't afford to pay up..." + Colors.RESET;
+            news += "\n\nGame Over!";
+            return new Outcome(news, GameEvent.Type.BRAWL_LOST, hunter.getGold() - goldBefore, null, null,
+                    GameEvent.Type.GAME_LOST);
+        }
+        news += Colors.RESET + "\nYou lost the brawl and pay " + goldDiff + Colors.YELLOW + " gold." + Colors.RESET;
+        return new Outcome(news, GameEvent.Type.BRAWL_LOST, hunter.getGold() - goldBefore, null, null, null);
+    }
+
+    /**
+     * Digs for gold. Whether the hunter has a shovel, and hasn't dug in the town already, is up to the town.
+     *
+     * @return what happened: GOLD_DUG or DIRT_DUG.
+     */
+    static Outcome dig(Hunter hunter, GameRandom random) {
+        int successful = random.nextInt(2) + 1;
+        if (successful == 2) {
+            int amount = random.nextInt(20) + 1;
+            hunter.changeGold(amount);
+            GameMetrics.INSTANCE.dug(amount);
+            return new Outcome("You dug up " + amount + Colors.YELLOW + " gold!" + Colors.RESET,
+                    GameEvent.Type.GOLD_DUG, amount, null, null, null);
+        }
+        GameMetrics.INSTANCE.dug(0);
+        return new Outcome("You dug but only found dirt.", GameEvent.Type.DIRT_DUG, 0, null, null, null);
+    }
+
+    /**
+     * Hunts for a town's treasure. Whether the hunter has hunted in the town already is up to the town.
+     *
+     * @param treasure The treasure hidden in the town, or "Dust".
+     * @param claim Asked just before the hunter is given the treasure; it says false if they can't have it after all.
+     * @return what happened, ending in GAME_WON if it was the hunter's last treasure, or null if claim said no.
+     */
+    static Outcome hunt(Hunter hunter, String treasure, BooleanSupplier claim) {
+        if (treasure.equals("Dust")) {
+            GameMetrics.INSTANCE.dustFound();
+            return new Outcome("You dug up dust...", GameEvent.Type.DUST_FOUND, 0, null, null, null);
+        }
+        if (hunter.hasItemInTreasures(treasure)) {
+            GameMetrics.INSTANCE.treasureRepeated();
+            return new Outcome("\nYou found a " + treasure + "! However, you already own one of these..",
+                    GameEvent.Type.TREASURE_REPEATED, 0, null, treasure, null);
+        }
+        if (!claim.getAsBoolean()) {
+            return null;
+        }
+        String news = "You got a " + treasure + "!";
+        int treasureIdx = hunter.emptyPositionInTreasures();
+        hunter.addTreasure(treasureIdx, treasure);
+        boolean lastTreasure = treasureIdx == hunter.getTreasures().length - 1;
+        GameMetrics.INSTANCE.treasureFound(lastTreasure);
+        if (lastTreasure) {
+            news += ("\nCongratulations, you have found the" + Colors.PURPLE + " last " + Colors.RESET + "of the " + Colors.YELLOW + "three treasures. " + Colors.GREEN + "You win!" + Colors.RESET);
+            return new Outcome(news, GameEvent.Type.TREASURE_FOUND, 0, null, treasure, GameEvent.Type.GAME_WON);
+        }
+        return new Outcome(news, GameEvent.Type.TREASURE_FOUND, 0, null, treasure, null);
+    }
+
+    /**
+     * What came of something a hunter did in town: the news to tell them, and the event to report, if any.
+     */
+    static final class Outcome {
+        final String news;
+        final GameEvent.Type event;
+        final int goldDelta;
+        final Item item;
+        final String detail;
+        // GAME_WON or GAME_LOST if this ended the hunter's game, otherwise null
+        final GameEvent.Type ending;
+
+        private Outcome(String news, GameEvent.Type event, int goldDelta, Item item, String detail,
+                        GameEvent.Type ending) {
+            this.news = news;
+            this.event = event;
+            this.goldDelta = goldDelta;
+            this.item = item;
+            this.detail = detail;
+            this.ending = ending;
+        }
+    }
+}
@@ -1,4 +1,5 @@
-import java.util.Scanner;
+import java.io.IOException;
+import java.nio.file.Path;
 
 /**
  * This class is responsible for controlling the Treasure Hunter game.<p>
@@ -10,215 +11,291 @@ import java.util.Scanner;
 
 public class TreasureHunter {
     // static variables
-    private static final Scanner SCANNER = new Scanner(System.in);
+    private static final Path SAVE_FILE = Path.of("treasurehunter.sav");
+    private static final Path JOURNAL_FOLDER = Path.of("journals");
 
     // instance variables
-    private Town currentTown;
-    private Hunter hunter;
-    private static String mode = "";
-    private static boolean hardMode;
-    private static boolean easyMode;
-    private static boolean samurai;
-    private static boolean isTest;
-    private static boolean gameOver = false;
-    private boolean searched;
-    private boolean townHunted;
+    private GameConsole console;
+    private GameEngine game;
+    private long seed;
+    private CommandJournal journal;
+    private Path saveFile;
+    private Path journalFolder;
+    private int worldTowns;
+    private Leaderboard leaderboard;
 
     /**
-     * Constructs the Treasure Hunter game.
+     * Constructs the Treasure Hunter game on the terminal with a seed taken from the clock.
      */
     public TreasureHunter() {
+        this(GameConsole.system(), GameRandom.mix64(System.nanoTime()));
+    }
+
+    /**
+     * Constructs the Treasure Hunter game on the terminal.
+     *
+     * @param seed The seed for every random roll, so a game can be played again exactly.
+     */
+    public TreasureHunter(long seed) {
+        this(GameConsole.system(), seed);
+    }
+
+    /**
+     * Constructs the Treasure Hunter game.
+     *
+     * @param console Where the game talks to the player.
+     * @param seed The seed for every random roll, so a game can be played again exactly.
+     */
+    public TreasureHunter(GameConsole console, long seed) {
+        this.console = console;
         // these will be initialized in the play method
-        currentTown = null;
-        hunter = null;
-        hardMode = false;
-        isTest = false;
-        townHunted = false;
-        searched = false;
+        game = null;
+        journal = null;
+        this.seed = seed;
+        saveFile = SAVE_FILE;
+        journalFolder = JOURNAL_FOLDER;
+        worldTowns = 0;
+        leaderboard = null;
+    }
+
+    /**
+     * Constructs the Treasure Hunter game on the terminal around a game that was saved earlier.
+     *
+     * @param game The saved game.
+     */
+    public TreasureHunter(GameEngine game) {
+        this(GameConsole.system(), game.getSeed());
+        resume(game);
+    }
+
+    /**
+     * @param saveFile Where the (V) command saves the game, or null if saving is not allowed.
+     */
+    public void setSaveFile(Path saveFile) {
+        this.saveFile = saveFile;
+    }
+
+    /**
+     * @param journalFolder Where new games are recorded, or null to not record them.
+     */
+    public void setJournalFolder(Path journalFolder) {
+        this.journalFolder = journalFolder;
+    }
+
+    /**
+     * @param worldTowns How many towns are on the map for a new game, or 0 for a new town after every move.
+     */
+    public void setWorldTowns(int worldTowns) {
+        this.worldTowns = worldTowns;
+    }
+
+    /**
+     * @param leaderboard Where finished games are ranked, or null to not rank them.
+     */
+    public void setLeaderboard(Leaderboard leaderboard) {
+        this.leaderboard = leaderboard;
     }
 
     /**
      * Starts the game; this is the only public method
      */
     public void play() {
-        welcomePlayer();
-        enterTown();
-        showMenu();
+        if (game == null) {
+            welcomePlayer();
+            startJournal();
+        }
+        // programs reading the json style get an event for everything that happens
+        game.setListener(console);
+        try {
+            showMenu();
+        } finally {
+            // a game cut short by the player going away is still written out, up to where it stopped
+            finishJournal();
+        }
+        recordScore();
+        console.flush();
     }
 
     /**
-     * Creates a hunter object at the beginning of the game and populates the class member variable with it.
+     * Starts recording the new game into the journals folder, so it can be replayed if something goes wrong.
      */
-    private void welcomePlayer() {
-        System.out.println("Welcome to " + Colors.CYAN + "TREASURE HUNTER" + Colors.RESET + "!");
-        System.out.println("Going hunting for the big treasure, eh?");
-        System.out.print("What's your name, Hunter? ");
-        String name = SCANNER.nextLine().toLowerCase();
-        boolean repeat = true;
-        while (repeat) {
-            System.out.print("Which mode? (e)asy, (n)ormal, or (h)ard: ");
-            mode = SCANNER.nextLine().toLowerCase();
-            if (mode.equals("h")) {
-                hardMode = true;
-                hunter = new Hunter(name, 20);
-                repeat = false;
-            } else if (mode.equals("e")) {
-                easyMode = true;
-                hunter = new Hunter(name, 40);
-                repeat = false;
-            }
-            else if (mode.equals("test")) {
-                isTest = true;
-                hunter = new Hunter(name, 100, isTest);
-                repeat = false;
-            }
-            else if (mode.equals("n")) {
-                // set hunter instance variable
-                hunter = new Hunter(name, 20);
-                repeat = false;
-            }
-            else if (mode.equals("s")) {
-                samurai = true;
-                hunter = new Hunter(name, 20);
-                repeat = false;
-            }
-            else {
-                System.out.println("Sorry, that is not an option");
-            }
+    private void startJournal() {
+        if (journalFolder == null) {
+            return;
+        }
+        try {
+            journal = new CommandJournal(journalFolder.resolve("game-" + Long.toHexString(seed) + ".thj"), game);
+            game.setJournal(journal);
+        } catch (IOException e) {
+            console.println("(This game can't be recorded: " + e.getMessage() + ")");
         }
     }
 
-    public static String returnDifficulty() {
-        if (mode.equals("h")) {
-            return "hard";
-        } else if (mode.equals("e")) {
-            return "easy";
-        }
-        else if (mode.equals("test")) {
-            return "normal";
+    /**
+     * Records how the game ended and closes the journal.
+     */
+    private void finishJournal() {
+        if (journal == null) {
+            return;
         }
-        else if (mode.equals("n")) {
-            return "normal";
+        journal.recordFinalState(game.getHunter());
+        try {
+            journal.close();
+        } catch (IOException e) {
+            // nothing more can be recorded anyway
         }
-        else if (mode.equals("s")) {
-            return "samurai";
+    }
+
+    /**
+     * Puts the finished game on the leaderboard, and tells the player if it made the top games.
+     */
+    private void recordScore() {
+        if (leaderboard == null) {
+            return;
         }
-        else {
-            return " ";
+        try {
+            int place = leaderboard.record(game);
+            if (place > 0) {
+                console.println("You made #" + place + " on the " + game.getDifficulty().getName() + " leaderboard!");
+            }
+        } catch (IOException e) {
+            console.println("(This game can't go on the leaderboard: " + e.getMessage() + ")");
         }
     }
+
     /**
-     * Creates a new town and adds the Hunter to it.
+     * Picks up the game saved with the (V) command, from the same file the (V) command saves to.
+     *
+     * @return true if there was a saved game to pick up.
+     * @throws IOException if the save file can't be read or holds a damaged game.
      */
-    private void enterTown() {
-        double markdown = 0.5;
-        double toughness = 0.4;
-        if (hardMode) {
-            // in hard mode, you get less money back when you sell items
-            markdown = 0.25;
-
-            // and the town is "tougher"
-            toughness = 0.75;
+    public boolean loadSavedGame() throws IOException {
+        if (saveFile == null || !saveFile.toFile().exists()) {
+            return false;
         }
-        else if (easyMode) {
-            markdown = 1;
-            toughness = 0.25;
+        GameEngine saved = SnapshotStore.load(saveFile);
+        if (saved == null) {
+            return false;
         }
+        resume(saved);
+        return true;
+    }
 
-        // note that we don't need to access the Shop object
-        // outside of this method, so it isn't necessary to store it as an instance
-        // variable; we can leave it as a local variable
-        Shop shop = new Shop(markdown);
-
-        // creating the new Town -- which we need to store as an instance
-        // variable in this class, since we need to access the Town
-        // object in other methods of this class
-        currentTown = new Town(shop, toughness);
-
-        // calling the hunterArrives method, which takes the Hunter
-        // as a parameter; note this also could have been done in the
-        // constructor for Town, but this illustrates another way to associate
-        // an object with an object of a different class
-        currentTown.hunterArrives(hunter);
+    /**
+     * Plays on from a saved game instead of starting a new one.
+     */
+    private void resume(GameEngine saved) {
+        game = saved;
+        seed = saved.getSeed();
+        // a journal has to start at the beginning of a game, so resumed games are not recorded
+        journalFolder = null;
     }
 
-    private void resetPrint() {
-        currentTown.setPrintMessage("");
+    /**
+     * Asks the player for their name and mode, then starts a new game with them.
+     * The mode is turned into a DifficultyProfile here, once, and the game uses that from then on.
+     */
+    private void welcomePlayer() {
+        console.println("Welcome to " + Colors.CYAN + "TREASURE HUNTER" + Colors.RESET + "!");
+        console.println("Going hunting for the big treasure, eh?");
+        console.print("What's your name, Hunter? ");
+        String name = console.readLine();
+        while (game == null) {
+            console.print("Which mode? (e)asy, (n)ormal, or (h)ard: ");
+            String mode = console.readWord();
+            DifficultyProfile difficulty = DifficultyProfile.forMode(mode);
+            if (difficulty != null) {
+                game = new GameEngine(name, difficulty, seed, worldTowns);
+            } else {
+                console.println("Sorry, that is not an option");
+            }
+        }
     }
 
     /**
      * Displays the menu and receives the choice from the user.<p>
+     * Each menu screen is drawn by the console's renderer (for text, a FrameRenderer in a single write).<p>
      * The choice is sent to the processChoice() method for parsing.<p>
-     * This method will loop until the user chooses to exit.
+     * This method will loop until the game is over or the user chooses to exit.
      */
     private void showMenu() {
-        String choice = "";
-        while (!choice.equals("x")&&!gameOver) {
-            System.out.println();
-            System.out.println(currentTown.getLatestNews());
-            resetPrint();
-            System.out.println("***");
-            System.out.println(hunter.infoString());
-            System.out.println(currentTown.infoString());
-            System.out.println(Colors.GREEN + "(B)" + Colors.RESET + "uy something at the shop.");
-            System.out.println(Colors.GREEN + "(S)" + Colors.RESET + "ell something at the shop.");
-            System.out.println(Colors.GREEN + "(E)" + Colors.RESET + "xplore surrounding terrain.");
-            System.out.println(Colors.GREEN + "(M)" + Colors.RESET + "ove on to a different town.");
-            System.out.println(Colors.GREEN + "(L)" + Colors.RESET + "ook for trouble!");
-            System.out.println(Colors.GREEN + "(H)" + Colors.RESET + "unt for treasure.");
-            System.out.println(Colors.GREEN + "(D)" + Colors.RESET + "ig for gold.");
-            System.out.println("Give up the hunt and e" + Colors.GREEN + "(X)" + Colors.RESET + "it.");
-            System.out.println();
-            System.out.print("What's your next move? ");
-            choice = SCANNER.nextLine().toLowerCase();
+        while (!game.isGameOver()) {
+            console.frame(game.takeLatestNews(), game.getHunter(), game.getCurrentTown());
+            String choice = console.readWord();
             processChoice(choice);
         }
     }
 
     /**
-     * Takes the choice received from the menu and calls the appropriate method to carry out the instructions.
+     * Takes the choice received from the menu and hands it to the game.
+     * Shopping is done here, since the shop has to ask the player what they want,
+     * and so is saving, since only the console knows where the save file goes.
+     * Every choice that can change the game is checkpointed first, so "u" can take it back; if it didn't change
+     * anything after all, the checkpoint is dropped again.
+     * How long each choice takes is recorded as a FlightEvents.Choice when a flight recording asks for it.
      * @param choice The action to process.
      */
     private void processChoice(String choice) {
-        if (choice.equals("b") || choice.equals("s")) {
-            currentTown.enterShop(choice);
-        } else if (choice.equals("e")) {
-            System.out.println(currentTown.getTerrain().infoString());
-        } else if (choice.equals("m")) {
-            if (currentTown.leaveTown()) {
-                // This town is going away so print its news ahead of time.
-                System.out.println(currentTown.getLatestNews());
-                enterTown();
-            }
-        } else if (choice.equals("l")) {
-            currentTown.lookForTrouble();
-        } else if (choice.equals("x")) {
-            System.out.println("Fare thee well, " + hunter.getHunterName() + "!");
-        } else if (choice.equals("d")) {
-            if(!hunter.hasItemInKit("shovel")) {
-                System.out.println("You can't dig for gold without a shovel");
+        FlightEvents.Choice event = new FlightEvents.Choice();
+        event.begin();
+        carryOut(choice);
+        event.end();
+        if (event.shouldCommit()) {
+            event.command = choice;
+            event.turn = game.getTurns();
+            event.goldAfter = game.getHunter().getGold();
+            event.gameOver = game.isGameOver();
+            event.commit();
+        }
+    }
+
+    /**
+     * Carries out one choice for processChoice().
+     * @param choice The action to process.
+     */
+    private void carryOut(String choice) {
+        if (journal != null) {
+            journal.recordChoice(choice);
+        }
+        boolean checkpointed = game.getWorld() == null && GameEngine.canChangeGame(choice);
+        if (checkpointed) {
+            game.checkpoint();
+        }
+        if (choice.equals("u")) {
+            if (game.getWorld() != null) {
+                console.println("Sorry, moves on a map can't be undone yet.");
+            } else if (game.undo()) {
+                console.println("You took back your last move.");
             } else {
-                if (!currentTown.getSearched()) {
-                    currentTown.dig();
-                    currentTown.setTownSearched(true);
-                } else {
-                    System.out.println("Sorry, you already dug here.");
-                }
+                console.println("There's nothing to undo.");
             }
-        } else if (choice.equals("h")){
-            if (!currentTown.isTownHunted()) {
-                currentTown.hunt();
-                currentTown.setTownHunted(true);
-            } else {
-                System.out.println("You have already searched this town!");
+        } else if (choice.equals("b") || choice.equals("s")) {
+            game.enterShop(choice, console);
+        } else if (choice.equals("v")) {
+            if (saveFile == null) {
+                console.println("Sorry, games can't be saved here.");
+                return;
+            }
+            if (game.getWorld() != null) {
+                console.println("Sorry, games on a map can't be saved yet.");
+                return;
+            }
+            try {
+                SnapshotStore.save(saveFile, game);
+                console.println("Your game has been saved.");
+            } catch (IOException e) {
+                console.println("Sorry, your game couldn't be saved: " + e.getMessage());
             }
         } else {
-            System.out.println("Yikes! That's an invalid option! Try again.");
+            String message = game.processChoice(choice);
+            if (!message.isEmpty()) {
+                console.println(message);
+            }
+        }
+        if (checkpointed) {
+            // a shop trip that came away empty-handed, or a move that wasn't allowed, is nothing to undo
+            game.dropCheckpointIfUnchanged();
         }
     }
 
-    public static void gameOver() {
-        gameOver = true;
-    }
-
-}
\ No newline at end of file
+}
@@ -1,6 +1,39 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
 public class TreasureHunterRunner {
-    public static void main(String[] args) {
-        TreasureHunter game = new TreasureHunter();
-        game.play();
+    public static void main(String[] args) throws IOException {
+        TreasureHunter game;
+        int worldTowns = 0;
+        if (args.length > 0 && args[0].equals("--world")) {
+            // play on a map of towns that can be gone back to, instead of a new town after every move
+            worldTowns = WorldMap.DEFAULT_TOWNS;
+            args = Arrays.copyOfRange(args, 1, args.length);
+        }
+        if (args.length > 0 && args[0].equals("--load")) {
+            // pick up the game saved with the (V) command
+            game = new TreasureHunter();
+            try {
+                if (!game.loadSavedGame()) {
+                    System.out.println("There is no saved game.");
+                    return;
+                }
+            } catch (IOException e) {
+                System.out.println("The saved game can't be loaded: " + e.getMessage());
+                return;
+            }
+        } else if (args.length > 0) {
+            // a seed on the command line replays that exact game
+            game = new TreasureHunter(Long.parseLong(args[0]));
+        } else {
+            game = new TreasureHunter();
+        }
+        game.setWorldTowns(worldTowns);
+        GameMetrics.register();
+        try (Leaderboard leaderboard = new Leaderboard(Path.of("leaderboard"))) {
+            game.setLeaderboard(leaderboard);
+            game.play();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,169 @@
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The WorldMap class is a fixed world of towns that a hunter can come back to.<p>
+ * The towns sit on a ring. Each one has a road to the towns on either side of it and one more road across the
+ * ring, so every town has three roads out. Nothing about a town is stored until the hunter gets there: its terrain,
+ * toughness and treasure are rolled from the world's seed and the town's number, so a town comes out the same
+ * every time it is made. <p>
+ * Only the towns visited most recently are kept, in a small least-recently-used cache; an older town is dropped
+ * and made again from the seed if the hunter comes back. The only thing a town remembers that can't be made again
+ * is whether it has been hunted or dug, and that is kept as one bit each per town, so a game on a map of any size
+ * uses the same small amount of memory however long it goes on.
+ */
+
+public class WorldMap {
+    // constants
+    public static final int DEFAULT_TOWNS = 1024;
+    public static final int DEFAULT_CACHED_TOWNS = 16;
+    private static final long TOWN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    // instance variables
+    private long worldSeed;
+    private int townCount;
+    private int chordOffset;
+    private BitSet visited;
+    private BitSet hunted;
+    private BitSet searched;
+    private LinkedHashMap<Integer, Town> cache;
+    private int currentTown;
+
+    /**
+     * @param worldSeed The seed every town is made from.
+     * @param townCount How many towns there are; at least 4.
+     * @param cachedTowns How many towns to keep at once; at least 1.
+     */
+    public WorldMap(long worldSeed, int townCount, int cachedTowns) {
+        if (townCount < 4 || cachedTowns < 1) {
+            throw new IllegalArgumentException("A map needs at least 4 towns and room for 1: " + townCount + ", " + cachedTowns);
+        }
+        this.worldSeed = worldSeed;
+        this.townCount = townCount;
+        // the road across the ring goes to the town this far round, so it never doubles up a neighbour's road
+        chordOffset = 2 + (int) Long.remainderUnsigned(GameRandom.mix64(worldSeed), townCount - 3);
+        visited = new BitSet(townCount);
+        hunted = new BitSet(townCount);
+        searched = new BitSet(townCount);
+        cache = new LinkedHashMap<>(cachedTowns * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Town> eldest) {
+                if (size() <= cachedTowns) {
+                    return false;
+                }
+                remember(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+        currentTown = 0;
+    }
+
+    // accessors
+    public long getWorldSeed() {
+        return worldSeed;
+    }
+
+    public int getTownCount() {
+        return townCount;
+    }
+
+    /**
+     * @return the number of the town the hunter is in.
+     */
+    public int getCurrentTown() {
+        return currentTown;
+    }
+
+    /**
+     * @return how many different towns the hunter has been to.
+     */
+    public int getVisitedCount() {
+        return visited.cardinality();
+    }
+
+    /**
+     * @param town A town's number.
+     * @return the numbers of the three towns its roads lead to.
+     */
+    public int[] getExits(int town) {
+        return new int[]{exit(town, 0), exit(town, 1), exit(town, 2)};
+    }
+
+    /**
+     * @param town A town's number.
+     * @param road 0 or 1 for the towns either side, 2 for the road across the ring.
+     * @return the number of the town the road leads to.
+     */
+    private int exit(int town, int road) {
+        if (road == 0) {
+            return (town + 1) % townCount;
+        } else if (road == 1) {
+            return (town + townCount - 1) % townCount;
+        }
+        return (town + chordOffset) % townCount;
+    }
+
+    /**
+     * Takes one of the current town's roads, picked at random, to the town at the other end.
+     *
+     * @param shop The game's shop.
+     * @param difficulty The game's difficulty.
+     * @param random The game's random rolls, which pick the road and are used for everything the town does.
+     * @return the town the hunter is now in.
+     */
+    public Town travel(Shop shop, DifficultyProfile difficulty, GameRandom random) {
+        return enter(exit(currentTown, random.nextInt(3)), shop, difficulty, random);
+    }
+
+    /**
+     * Goes to a town, making it if it isn't in the cache.
+     *
+     * @param town The town's number.
+     * @param shop The game's shop.
+     * @param difficulty The game's difficulty.
+     * @param random The game's random rolls, used for everything the town does.
+     * @return the town.
+     */
+    public Town enter(int town, Shop shop, DifficultyProfile difficulty, GameRandom random) {
+        currentTown = town;
+        Town entered = cache.get(town);
+        if (entered == null) {
+            entered = makeTown(town, shop, difficulty, random);
+            cache.put(town, entered);
+        }
+        return entered;
+    }
+
+    /**
+     * Notes that the hunter has been to the current town.
+     *
+     * @return true if this is the hunter's first time there.
+     */
+    public boolean markVisited() {
+        if (visited.get(currentTown)) {
+            return false;
+        }
+        visited.set(currentTown);
+        return true;
+    }
+
+    /**
+     * Makes a town from the world's seed and the town's number, as it was left.
+     */
+    private Town makeTown(int town, Shop shop, DifficultyProfile difficulty, GameRandom random) {
+        // the town's own rolls come from its own generator, so they are the same every time it is made
+        GameRandom townRandom = new GameRandom(GameRandom.mix64(worldSeed + (town + 1) * TOWN_GAMMA));
+        Town rolled = new Town(shop, difficulty, townRandom);
+        return new Town(shop, difficulty, random, rolled.getTerrain(), rolled.isToughTown(), rolled.getTreasure(),
+                hunted.get(town), searched.get(town));
+    }
+
+    /**
+     * Keeps what can't be rolled again about a town that is being dropped from the cache.
+     */
+    private void remember(int town, Town dropped) {
+        hunted.set(town, dropped.isTownHunted());
+        searched.set(town, dropped.getSearched());
+    }
+}